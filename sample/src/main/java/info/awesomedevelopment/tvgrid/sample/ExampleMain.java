@@ -12,10 +12,11 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.WindowManager;
-import android.widget.AbsListView;
 import android.widget.TextView;
 
+import info.awesomedevelopment.tvgrid.library.TVGridAdapter;
 import info.awesomedevelopment.tvgrid.library.TVGridView;
+import info.awesomedevelopment.tvgrid.library.TVGridViewHolder;
 
 public class ExampleMain extends Activity {
 
@@ -41,7 +42,6 @@ public class ExampleMain extends Activity {
         });
 
         recyclerView.setLayoutManager(new GridLayoutManager(this, mumColumns, GridLayoutManager.VERTICAL, false));
-        recyclerView.setAdapter(new Adapter(recyclerView));
 
         WindowManager wm = (WindowManager) getSystemService(Context.WINDOW_SERVICE);
         Display display = wm.getDefaultDisplay();
@@ -50,17 +50,15 @@ public class ExampleMain extends Activity {
 
         mCellWidth = (size.x - (2*mumColumns*cellMargin) - (2*recyclerViewPadding)) / mumColumns;
         mCellHeight = mCellWidth / 2;
-    }
-
-    public class Adapter extends RecyclerView.Adapter<Adapter.ViewHolder> {
 
-        private TVGridView mRecyclerView;
+        Adapter adapter = new Adapter();
+        adapter.setCellSize(mCellWidth, mCellHeight);
+        recyclerView.setAdapter(adapter);
+    }
 
-        public Adapter(TVGridView recyclerView) {
-            mRecyclerView = recyclerView;
-        }
+    public class Adapter extends TVGridAdapter<Adapter.ViewHolder> {
 
-        public class ViewHolder extends RecyclerView.ViewHolder {
+        public class ViewHolder extends TVGridViewHolder {
             public TextView textView;
 
             public ViewHolder(ViewGroup v) {
@@ -70,26 +68,14 @@ public class ExampleMain extends Activity {
         }
 
         @Override
-        public Adapter.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        public Adapter.ViewHolder onCreateGridViewHolder(ViewGroup parent, int viewType) {
             ViewGroup v = (ViewGroup) LayoutInflater.from(parent.getContext()).inflate(R.layout.item, parent, false);
             return new ViewHolder(v);
         }
 
         @Override
-        public void onBindViewHolder(final ViewHolder holder, final int position) {
-            AbsListView.LayoutParams params = new AbsListView.LayoutParams(mCellWidth, mCellHeight);
-            holder.itemView.setLayoutParams(params);
-
+        public void onBindViewHolder(ViewHolder holder, int position) {
             holder.textView.setText(String.valueOf(position));
-
-            holder.itemView.setFocusable(true);
-            holder.itemView.setOnFocusChangeListener(new View.OnFocusChangeListener() {
-
-                @Override
-                public void onFocusChange(final View view, final boolean b) {
-                    mRecyclerView.selectView(view, b);
-                }
-            });
         }
 
         @Override
@@ -0,0 +1,160 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.test.ActivityInstrumentationTestCase2;
+import android.view.KeyEvent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Records a short D-pad walk over the grid, round-trips the trace through its
+ * binary format, replays it and checks that the replay produced the same keys,
+ * focus moves and selector updates
+ */
+public class NavigationTraceReplayTest extends ActivityInstrumentationTestCase2<TraceTestActivity> {
+
+    private static final int[] KEYS = {
+            KeyEvent.KEYCODE_DPAD_RIGHT,
+            KeyEvent.KEYCODE_DPAD_RIGHT,
+            KeyEvent.KEYCODE_DPAD_DOWN,
+            KeyEvent.KEYCODE_DPAD_LEFT,
+            KeyEvent.KEYCODE_DPAD_DOWN,
+            KeyEvent.KEYCODE_DPAD_RIGHT,
+            KeyEvent.KEYCODE_DPAD_UP,
+    };
+
+    private static final int CAPACITY = 256;
+    private static final long REPLAY_TIMEOUT_SECONDS = 10;
+
+    public NavigationTraceReplayTest() {
+        super(TraceTestActivity.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        setActivityInitialTouchMode(false);
+    }
+
+    public void testReplayMatchesRecording() throws Throwable {
+        final TVGridView grid = getActivity().getGrid();
+
+        focusFirstCell(grid);
+        startTrace(grid);
+        for (int key : KEYS) {
+            getInstrumentation().sendKeyDownUpSync(key);
+        }
+        getInstrumentation().waitForIdleSync();
+        final NavigationTrace recorded = stopTrace(grid);
+
+        assertEquals(0, recorded.getDroppedCount());
+        assertEquals(KEYS.length * 2, countKeys(recorded));
+        assertEquals(KEYS.length, focusPositions(recorded).size());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recorded.writeTo(out);
+        final NavigationTrace loaded = NavigationTrace.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        assertSameEvents(recorded, loaded);
+
+        focusFirstCell(grid);
+        startTrace(grid);
+        final CountDownLatch finished = new CountDownLatch(1);
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                loaded.replay(grid, new Runnable() {
+                    @Override
+                    public void run() {
+                        finished.countDown();
+                    }
+                });
+            }
+        });
+        assertTrue("Replay did not finish", finished.await(REPLAY_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        getInstrumentation().waitForIdleSync();
+        final NavigationTrace replayed = stopTrace(grid);
+
+        assertEquals(countKeys(loaded), countKeys(replayed));
+        assertEquals(focusPositions(loaded), focusPositions(replayed));
+        assertEquals(loaded.getSelectorUpdateCount(), replayed.getSelectorUpdateCount());
+    }
+
+    private void focusFirstCell(final TVGridView grid) throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                grid.getChildAt(0).requestFocus();
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    private void startTrace(final TVGridView grid) throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                grid.startNavigationTrace(CAPACITY);
+            }
+        });
+    }
+
+    private NavigationTrace stopTrace(final TVGridView grid) throws Throwable {
+        final NavigationTrace[] trace = new NavigationTrace[1];
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                trace[0] = grid.stopNavigationTrace();
+            }
+        });
+        return trace[0];
+    }
+
+    private static int countKeys(NavigationTrace trace) {
+        int keys = 0;
+        for (int i = 0; i < trace.getEventCount(); i++) {
+            if (trace.getEventType(i) == NavigationTrace.EVENT_KEY) keys++;
+        }
+        return keys;
+    }
+
+    private static ArrayList<Integer> focusPositions(NavigationTrace trace) {
+        ArrayList<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < trace.getEventCount(); i++) {
+            if (trace.getEventType(i) == NavigationTrace.EVENT_FOCUS) positions.add(trace.getEventArg(i, 0));
+        }
+        return positions;
+    }
+
+    private static void assertSameEvents(NavigationTrace expected, NavigationTrace actual) {
+        assertEquals(expected.getEventCount(), actual.getEventCount());
+        assertEquals(expected.getSelectorUpdateCount(), actual.getSelectorUpdateCount());
+        assertEquals(expected.getInvalidationCount(), actual.getInvalidationCount());
+        assertEquals(expected.getAllocationCount(), actual.getAllocationCount());
+        for (int i = 0; i < expected.getEventCount(); i++) {
+            assertEquals(expected.getEventTime(i), actual.getEventTime(i));
+            assertEquals(expected.getEventType(i), actual.getEventType(i));
+            for (int arg = 0; arg < 4; arg++) {
+                assertEquals(expected.getEventArg(i, arg), actual.getEventArg(i, arg));
+            }
+        }
+    }
+}
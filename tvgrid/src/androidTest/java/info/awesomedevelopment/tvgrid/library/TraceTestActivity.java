@@ -0,0 +1,76 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.support.v7.widget.GridLayoutManager;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Hosts a small grid that fits on screen, so key navigation never scrolls and
+ * a replay moves focus exactly like the recording did
+ */
+public class TraceTestActivity extends Activity {
+
+    static final int COLUMNS = 4;
+    static final int ITEMS = 12;
+    static final int CELL_SIZE = 100;
+
+    private TVGridView mGrid;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        mGrid = new TVGridView(this);
+        mGrid.setAnimateSelectorChanges(false);
+        mGrid.setLayoutManager(new GridLayoutManager(this, COLUMNS));
+
+        Adapter adapter = new Adapter();
+        adapter.setCellSize(CELL_SIZE, CELL_SIZE);
+        mGrid.setAdapter(adapter);
+
+        setContentView(mGrid);
+    }
+
+    TVGridView getGrid() {
+        return mGrid;
+    }
+
+    private static final class Adapter extends TVGridAdapter<TVGridViewHolder> {
+
+        @Override
+        public TVGridViewHolder onCreateGridViewHolder(ViewGroup parent, int viewType) {
+            TextView view = new TextView(parent.getContext());
+            view.setLayoutParams(new ViewGroup.LayoutParams(CELL_SIZE, CELL_SIZE));
+            return new TVGridViewHolder(view);
+        }
+
+        @Override
+        public void onBindViewHolder(TVGridViewHolder holder, int position) {
+            ((TextView) holder.itemView).setText(String.valueOf(position));
+        }
+
+        @Override
+        public int getItemCount() {
+            return ITEMS;
+        }
+    }
+}
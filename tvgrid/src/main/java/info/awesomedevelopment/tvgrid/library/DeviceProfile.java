@@ -0,0 +1,241 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.annotation.TargetApi;
+import android.app.ActivityManager;
+import android.content.Context;
+import android.os.Build;
+import android.support.annotation.IntDef;
+import android.support.v4.app.ActivityManagerCompat;
+import android.view.Choreographer;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Selector quality settings for one device class.
+ *
+ * QUALITY_HIGH renders with the requested render mode, animates fully and draws the inner shadow.
+ * QUALITY_MEDIUM uses ALPHA_8 masks, a shortened animation and a smaller cache.
+ * QUALITY_LOW uses ALPHA_8 masks, snaps the selector and skips the shadow.
+ */
+public final class DeviceProfile {
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({QUALITY_AUTO, QUALITY_LOW, QUALITY_MEDIUM, QUALITY_HIGH})
+    public @interface Quality {}
+    public static final int QUALITY_AUTO = -1;
+    public static final int QUALITY_LOW = 0;
+    public static final int QUALITY_MEDIUM = 1;
+    public static final int QUALITY_HIGH = 2;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({ANIMATION_FULL, ANIMATION_SHORT, ANIMATION_SNAP})
+    public @interface AnimationMode {}
+    public static final int ANIMATION_FULL = 0;
+    public static final int ANIMATION_SHORT = 1;
+    public static final int ANIMATION_SNAP = 2;
+
+    private static final int LOW_MEMORY_CLASS = 64;
+
+    @Quality private final int mQuality;
+    @AnimationMode private final int mAnimationMode;
+    private final boolean mMaskRendering;
+    private final boolean mDrawShadow;
+    private final int mCacheBudgetKb;
+
+    private DeviceProfile(@Quality int quality, int memoryClass) {
+        mQuality = quality;
+        switch (quality) {
+            case QUALITY_LOW:
+                mAnimationMode = ANIMATION_SNAP;
+                mMaskRendering = true;
+                mDrawShadow = false;
+                mCacheBudgetKb = memoryClass * 1024 / 32;
+                break;
+            case QUALITY_MEDIUM:
+                mAnimationMode = ANIMATION_SHORT;
+                mMaskRendering = true;
+                mDrawShadow = true;
+                mCacheBudgetKb = memoryClass * 1024 / 16;
+                break;
+            case QUALITY_HIGH:
+            default:
+                mAnimationMode = ANIMATION_FULL;
+                mMaskRendering = false;
+                mDrawShadow = true;
+                mCacheBudgetKb = memoryClass * 1024 / 8;
+                break;
+        }
+    }
+
+    /**
+     * @param context context used to look up the ActivityManager
+     * @param quality one of QUALITY_LOW, QUALITY_MEDIUM or QUALITY_HIGH
+     * @return profile for the given quality on this device
+     */
+    static DeviceProfile create(Context context, @Quality int quality) {
+        ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        return new DeviceProfile(quality, am.getMemoryClass());
+    }
+
+    /**
+     * @param context context used to look up the ActivityManager
+     * @return the highest quality this device class should run at
+     */
+    @Quality
+    static int qualityForDevice(Context context) {
+        ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (ActivityManagerCompat.isLowRamDevice(am)) return QUALITY_LOW;
+        if (am.getMemoryClass() <= LOW_MEMORY_CLASS) return QUALITY_MEDIUM;
+        return QUALITY_HIGH;
+    }
+
+    @Quality
+    public int getQuality() {
+        return mQuality;
+    }
+
+    @AnimationMode
+    public int getAnimationMode() {
+        return mAnimationMode;
+    }
+
+    /**
+     * @param duration full animation duration
+     * @return duration to use for this profile, 0 when snapping
+     */
+    public int getAnimationDuration(int duration) {
+        switch (mAnimationMode) {
+            case ANIMATION_SHORT:
+                return duration / 2;
+            case ANIMATION_SNAP:
+                return 0;
+            default:
+                return duration;
+        }
+    }
+
+    /**
+     * @return true if selectors should be rendered as ALPHA_8 masks regardless of the requested render mode
+     */
+    public boolean isMaskRendering() {
+        return mMaskRendering;
+    }
+
+    public boolean drawsShadow() {
+        return mDrawShadow;
+    }
+
+    public int getCacheBudgetKb() {
+        return mCacheBudgetKb;
+    }
+
+    /**
+     * Measures frame intervals while the selector moves and reports sustained
+     * jank or recovery. It only runs for a short while after each {@link #kick()},
+     * so an idle grid does not keep a frame callback alive.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    static class FrameMonitor implements Choreographer.FrameCallback {
+
+        interface Listener {
+            void onSustainedJank();
+            void onSustainedRecovery();
+        }
+
+        private static final long FRAME_NANOS = 16666667L;
+        private static final long JANK_NANOS = FRAME_NANOS * 3 / 2;
+        private static final long ACTIVE_NANOS = 500000000L;
+
+        private static final int WINDOW = 30;
+        private static final int JANK_PERCENT = 25;
+        private static final int SMOOTH_PERCENT = 5;
+        private static final int JANK_WINDOWS = 2;
+        private static final int SMOOTH_WINDOWS = 4;
+
+        private final Listener mListener;
+
+        private boolean mRunning;
+        private long mLastKickNanos;
+        private long mLastFrameNanos;
+
+        private int mFrames;
+        private int mJankFrames;
+        private int mJankWindows;
+        private int mSmoothWindows;
+
+        FrameMonitor(Listener listener) {
+            mListener = listener;
+        }
+
+        /**
+         * Keeps the monitor measuring for a while after a selector update
+         */
+        void kick() {
+            mLastKickNanos = System.nanoTime();
+            if (mRunning) return;
+
+            mRunning = true;
+            mLastFrameNanos = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void stop() {
+            if (!mRunning) return;
+            mRunning = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (mLastFrameNanos != 0) {
+                mFrames++;
+                if (frameTimeNanos - mLastFrameNanos > JANK_NANOS) mJankFrames++;
+                if (mFrames == WINDOW) endWindow();
+            }
+            mLastFrameNanos = frameTimeNanos;
+
+            if (frameTimeNanos - mLastKickNanos > ACTIVE_NANOS) {
+                mRunning = false;
+                return;
+            }
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        private void endWindow() {
+            final int percent = mJankFrames * 100 / mFrames;
+            mFrames = 0;
+            mJankFrames = 0;
+
+            if (percent >= JANK_PERCENT) {
+                mSmoothWindows = 0;
+                if (++mJankWindows >= JANK_WINDOWS) {
+                    mJankWindows = 0;
+                    mListener.onSustainedJank();
+                }
+            } else if (percent <= SMOOTH_PERCENT) {
+                mJankWindows = 0;
+                if (++mSmoothWindows >= SMOOTH_WINDOWS) {
+                    mSmoothWindows = 0;
+                    mListener.onSustainedRecovery();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * A named set of highlighted adapter positions drawn with one style. The grid
+ * draws every layer in one pass over its visible children, so the cost grows
+ * with the highlights on screen, not with the item count. Renderings come from
+ * the shared selector cache and are kept per cell size, so drawing a highlight
+ * does no cache lookup unless its size is new or the render settings changed.
+ *
+ * Positions follow the adapter's item range notifications, forwarded by the grid.
+ */
+final class HighlightLayer {
+
+    private static final int MAX_SIZES = 16;
+
+    private final String mName;
+    private SelectorStyle mStyle;
+    @TVGridView.SelectorPosition private int mPosition;
+
+    private SparseBooleanArray mPositions = new SparseBooleanArray();
+    private final SparseArray<SelectorDrawable> mDrawables = new SparseArray<>();
+    private final Drawable.Callback mCallback;
+
+    private boolean mMask;
+    private boolean mShadow;
+    private int mGeneration = -1;
+
+    /**
+     * @param callback invalidated when a glow finishes rendering
+     */
+    HighlightLayer(String name, SelectorStyle style, @TVGridView.SelectorPosition int position, Drawable.Callback callback) {
+        mName = name;
+        mCallback = callback;
+        setStyle(style, position);
+    }
+
+    String getName() {
+        return mName;
+    }
+
+    SelectorStyle getStyle() {
+        return mStyle;
+    }
+
+    @TVGridView.SelectorPosition
+    int getPosition() {
+        return mPosition;
+    }
+
+    void setStyle(SelectorStyle style, @TVGridView.SelectorPosition int position) {
+        mStyle = style;
+        mPosition = position;
+        mDrawables.clear();
+    }
+
+    void setHighlighted(int position, boolean highlighted) {
+        if (highlighted) mPositions.put(position, true);
+        else mPositions.delete(position);
+    }
+
+    boolean isHighlighted(int position) {
+        return mPositions.get(position);
+    }
+
+    boolean isEmpty() {
+        return mPositions.size() == 0;
+    }
+
+    void clear() {
+        mPositions.clear();
+    }
+
+    void onItemRangeInserted(int positionStart, int itemCount) {
+        SparseBooleanArray shifted = new SparseBooleanArray(mPositions.size());
+        for (int i = 0, count = mPositions.size(); i < count; i++) {
+            final int position = mPositions.keyAt(i);
+            shifted.put(position >= positionStart ? position + itemCount : position, true);
+        }
+        mPositions = shifted;
+    }
+
+    void onItemRangeRemoved(int positionStart, int itemCount) {
+        SparseBooleanArray shifted = new SparseBooleanArray(mPositions.size());
+        for (int i = 0, count = mPositions.size(); i < count; i++) {
+            final int position = mPositions.keyAt(i);
+            if (position >= positionStart + itemCount) shifted.put(position - itemCount, true);
+            else if (position < positionStart) shifted.put(position, true);
+        }
+        mPositions = shifted;
+    }
+
+    void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        SparseBooleanArray shifted = new SparseBooleanArray(mPositions.size());
+        for (int i = 0, count = mPositions.size(); i < count; i++) {
+            int position = mPositions.keyAt(i);
+            if (position >= fromPosition && position < fromPosition + itemCount) {
+                position = toPosition + position - fromPosition;
+            } else {
+                if (position >= fromPosition + itemCount) position -= itemCount;
+                if (position >= toPosition) position += itemCount;
+            }
+            shifted.put(position, true);
+        }
+        mPositions = shifted;
+    }
+
+    /**
+     * Draws the highlight for one cell. Every size keeps its own drawable, which
+     * is only re-resolved when its atlas dropped it. Changed render settings or
+     * a new selector generation drop every size.
+     *
+     * @param bounds selector bounds in grid coordinates
+     * @param w width of the cell
+     * @param h height of the cell
+     * @param shadow true to draw the shadow edge, or the glow if the style has one
+     * @param generation style generation of the grid, bumped on device profile changes
+     */
+    void draw(Canvas canvas, Rect bounds, int w, int h, boolean mask, boolean shadow, int generation) {
+        if (mMask != mask || mShadow != shadow || mGeneration != generation) {
+            mDrawables.clear();
+            mMask = mask;
+            mShadow = shadow;
+            mGeneration = generation;
+        }
+
+        final int key = (w << 16) | (h & 0xFFFF);
+        SelectorDrawable drawable = mDrawables.get(key);
+        if (drawable == null) {
+            // Grids rarely use more than a few cell sizes, start over if they do
+            if (mDrawables.size() >= MAX_SIZES) mDrawables.clear();
+
+            drawable = new SelectorDrawable();
+            drawable.setCallback(mCallback);
+            mDrawables.put(key, drawable);
+        }
+        if (drawable.getRendering() == null || !drawable.getRendering().isValid()) {
+            drawable.setRendering(SelectorRenderer.obtain(mStyle, mask, shadow && !mStyle.hasGlow(), w, h), mStyle, shadow);
+        }
+
+        drawable.setBounds(bounds);
+        drawable.draw(canvas);
+    }
+}
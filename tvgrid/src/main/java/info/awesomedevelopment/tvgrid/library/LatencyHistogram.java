@@ -0,0 +1,101 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Fixed-memory latency histogram in milliseconds. Buckets are 1 ms wide up to
+ * 100 ms and 10 ms wide up to 1 s, with one bucket for everything slower.
+ * Recording is a single atomic increment, so the UI thread records without
+ * locks while another thread reads percentiles. Reads taken during recording
+ * may lag by a few samples.
+ */
+@SuppressWarnings("unused")
+public final class LatencyHistogram {
+
+    /**
+     * Reported for samples in the overflow bucket
+     */
+    public static final long OVERFLOW_MILLIS = 1000;
+
+    private static final int FINE_BUCKETS = 100;
+    private static final int COARSE_WIDTH = 10;
+    private static final int COARSE_BUCKETS = (int) (OVERFLOW_MILLIS - FINE_BUCKETS) / COARSE_WIDTH;
+    private static final int OVERFLOW = FINE_BUCKETS + COARSE_BUCKETS;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(OVERFLOW + 1);
+
+    public void record(long millis) {
+        mBuckets.incrementAndGet(bucketFor(millis));
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i <= OVERFLOW; i++) {
+            count += mBuckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @param percentile percentile between 0 and 100, like 50, 95 or 99
+     * @return upper edge of the bucket holding the percentile in milliseconds,
+     * OVERFLOW_MILLIS if it is slower than that, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        final long count = getCount();
+        if (count == 0) return 0;
+
+        final long target = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i <= OVERFLOW; i++) {
+            seen += mBuckets.get(i);
+            if (seen >= target) return upperEdge(i);
+        }
+        return OVERFLOW_MILLIS;
+    }
+
+    public void reset() {
+        for (int i = 0; i <= OVERFLOW; i++) {
+            mBuckets.set(i, 0);
+        }
+    }
+
+    /**
+     * @return count, p50, p95 and p99 on one line, for logs and bug reports
+     */
+    public String dump() {
+        return "count=" + getCount()
+                + " p50=" + getPercentile(50) + "ms"
+                + " p95=" + getPercentile(95) + "ms"
+                + " p99=" + getPercentile(99) + "ms";
+    }
+
+    private static int bucketFor(long millis) {
+        if (millis < 0) return 0;
+        if (millis < FINE_BUCKETS) return (int) millis;
+        if (millis < OVERFLOW_MILLIS) return FINE_BUCKETS + (int) (millis - FINE_BUCKETS) / COARSE_WIDTH;
+        return OVERFLOW;
+    }
+
+    private static long upperEdge(int bucket) {
+        if (bucket < FINE_BUCKETS) return bucket;
+        if (bucket < OVERFLOW) return FINE_BUCKETS + (bucket - FINE_BUCKETS + 1) * COARSE_WIDTH;
+        return OVERFLOW_MILLIS;
+    }
+}
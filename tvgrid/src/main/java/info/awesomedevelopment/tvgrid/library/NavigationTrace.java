@@ -0,0 +1,334 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.graphics.Rect;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.view.FocusFinder;
+import android.view.KeyEvent;
+import android.view.View;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Timestamped record of key events, focus changes, scroll deltas and selector
+ * updates of one grid, see {@link TVGridView#startNavigationTrace(int)}. Events
+ * go into arrays allocated up front, so recording does not disturb what it
+ * measures; events past the capacity are dropped and counted.
+ *
+ * Traces are written in a compact binary format and can be replayed against a
+ * grid with the same key timing, which makes jank reports reproducible. The
+ * counters of a replay can be compared with the original.
+ *
+ * Allocations are counted with the runtime's per-thread allocation counter on
+ * the thread that started the trace, normally the UI thread. Counting slows
+ * allocation down a little while the trace records.
+ */
+@SuppressWarnings("unused")
+public final class NavigationTrace {
+
+    public static final int EVENT_KEY = 0;
+    public static final int EVENT_FOCUS = 1;
+    public static final int EVENT_SCROLL = 2;
+    public static final int EVENT_SELECTOR = 3;
+
+    private static final int MAGIC = 0x54564754;
+    private static final int VERSION = 2;
+    private static final int ARGS = 4;
+
+    /**
+     * Largest event count readFrom accepts, about 25 MB of events
+     */
+    private static final int MAX_EVENTS = 1 << 20;
+
+    private final int mCapacity;
+    private final long[] mTimes;
+    private final byte[] mTypes;
+    private final int[] mArgs;
+    private int mCount;
+    private int mDropped;
+
+    private long mStartTime;
+    private int mStartMisses;
+    private boolean mRecording;
+
+    private int mSelectorUpdates;
+    private int mInvalidations;
+    private int mCacheMisses;
+    private int mAllocations;
+
+    /**
+     * @param capacity maximum number of events kept
+     */
+    public NavigationTrace(int capacity) {
+        mCapacity = capacity;
+        mTimes = new long[capacity];
+        mTypes = new byte[capacity];
+        mArgs = new int[capacity * ARGS];
+    }
+
+    @SuppressWarnings("deprecation")
+    void start() {
+        mStartTime = SystemClock.uptimeMillis();
+        mStartMisses = SelectorCache.getMissCount();
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        mRecording = true;
+    }
+
+    @SuppressWarnings("deprecation")
+    void stop() {
+        if (!mRecording) return;
+        mCacheMisses = SelectorCache.getMissCount() - mStartMisses;
+        mAllocations = Debug.getThreadAllocCount();
+        Debug.stopAllocCounting();
+        mRecording = false;
+    }
+
+    void recordKey(KeyEvent event) {
+        record(EVENT_KEY, event.getEventTime(), event.getKeyCode(), event.getAction(), event.getRepeatCount(), 0);
+    }
+
+    void recordFocus(int position) {
+        record(EVENT_FOCUS, SystemClock.uptimeMillis(), position, 0, 0, 0);
+    }
+
+    void recordScroll(int dx, int dy) {
+        record(EVENT_SCROLL, SystemClock.uptimeMillis(), dx, dy, 0, 0);
+    }
+
+    void recordSelector(Rect bounds) {
+        mSelectorUpdates++;
+        record(EVENT_SELECTOR, SystemClock.uptimeMillis(), bounds.left, bounds.top, bounds.right, bounds.bottom);
+    }
+
+    void countInvalidation() {
+        mInvalidations++;
+    }
+
+    private void record(int type, long time, int a, int b, int c, int d) {
+        if (!mRecording) return;
+        if (mCount == mCapacity) {
+            mDropped++;
+            return;
+        }
+
+        final int i = mCount++;
+        mTimes[i] = time - mStartTime;
+        mTypes[i] = (byte) type;
+        mArgs[i * ARGS] = a;
+        mArgs[i * ARGS + 1] = b;
+        mArgs[i * ARGS + 2] = c;
+        mArgs[i * ARGS + 3] = d;
+    }
+
+    public int getEventCount() {
+        return mCount;
+    }
+
+    public int getDroppedCount() {
+        return mDropped;
+    }
+
+    /**
+     * @return milliseconds from the start of the trace to the event
+     */
+    public long getEventTime(int index) {
+        return mTimes[index];
+    }
+
+    /**
+     * @return one of EVENT_KEY, EVENT_FOCUS, EVENT_SCROLL or EVENT_SELECTOR
+     */
+    public int getEventType(int index) {
+        return mTypes[index];
+    }
+
+    /**
+     * Arguments are key code, action and repeat count for keys, the adapter position
+     * for focus changes, dx and dy for scrolls and the bounds for selector updates
+     *
+     * @param arg argument index, 0 to 3
+     */
+    public int getEventArg(int index, int arg) {
+        return mArgs[index * ARGS + arg];
+    }
+
+    public int getSelectorUpdateCount() {
+        return mSelectorUpdates;
+    }
+
+    /**
+     * @return invalidations of the grid while recording, redraws of the selector layer excluded
+     */
+    public int getInvalidationCount() {
+        return mInvalidations;
+    }
+
+    /**
+     * @return selector cache lookups that had to render, counted process wide while recording
+     */
+    public int getCacheMissCount() {
+        return mRecording ? SelectorCache.getMissCount() - mStartMisses : mCacheMisses;
+    }
+
+    /**
+     * @return objects allocated on the thread that started the trace, available once it stopped
+     */
+    public int getAllocationCount() {
+        return mAllocations;
+    }
+
+    /**
+     * Writes the counters and every event
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(mCount);
+        data.writeInt(mDropped);
+        data.writeInt(mSelectorUpdates);
+        data.writeInt(mInvalidations);
+        data.writeInt(getCacheMissCount());
+        data.writeInt(mAllocations);
+
+        for (int i = 0; i < mCount; i++) {
+            data.writeInt((int) mTimes[i]);
+            data.writeByte(mTypes[i]);
+            for (int arg = 0; arg < ARGS; arg++) {
+                data.writeInt(mArgs[i * ARGS + arg]);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads a trace written by {@link #writeTo(OutputStream)}
+     *
+     * @throws IOException if the stream is not a trace, or its event count is negative
+     * or too large, so a corrupt file cannot make it allocate unbounded arrays
+     */
+    public static NavigationTrace readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+            throw new IOException("Not a navigation trace");
+        }
+
+        final int count = data.readInt();
+        if (count < 0 || count > MAX_EVENTS) {
+            throw new IOException("Corrupt navigation trace, " + count + " events");
+        }
+        NavigationTrace trace = new NavigationTrace(count);
+        trace.mCount = count;
+        trace.mDropped = data.readInt();
+        trace.mSelectorUpdates = data.readInt();
+        trace.mInvalidations = data.readInt();
+        trace.mCacheMisses = data.readInt();
+        trace.mAllocations = data.readInt();
+
+        for (int i = 0; i < count; i++) {
+            trace.mTimes[i] = data.readInt();
+            trace.mTypes[i] = data.readByte();
+            for (int arg = 0; arg < ARGS; arg++) {
+                trace.mArgs[i * ARGS + arg] = data.readInt();
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * Sends the recorded key events to the grid with their original timing.
+     * Trace the grid while replaying to collect counters for comparison.
+     *
+     * @param onFinished run after the last key event, may be null
+     */
+    public void replay(TVGridView grid, Runnable onFinished) {
+        new Replay(grid, onFinished).next();
+    }
+
+    private final class Replay implements Runnable {
+
+        private final TVGridView mGrid;
+        private final Runnable mOnFinished;
+        private final long mStart = SystemClock.uptimeMillis();
+        private int mIndex = -1;
+
+        Replay(TVGridView grid, Runnable onFinished) {
+            mGrid = grid;
+            mOnFinished = onFinished;
+        }
+
+        void next() {
+            do {
+                mIndex++;
+            } while (mIndex < mCount && mTypes[mIndex] != EVENT_KEY);
+
+            if (mIndex < mCount) {
+                mGrid.postDelayed(this, Math.max(0, mStart + mTimes[mIndex] - SystemClock.uptimeMillis()));
+            } else if (mOnFinished != null) {
+                mOnFinished.run();
+            }
+        }
+
+        @Override
+        public void run() {
+            final long time = mStart + mTimes[mIndex];
+            final int keyCode = mArgs[mIndex * ARGS];
+            final int action = mArgs[mIndex * ARGS + 1];
+            final KeyEvent event = new KeyEvent(time, time, action, keyCode, mArgs[mIndex * ARGS + 2]);
+
+            if (!mGrid.dispatchKeyEvent(event) && action == KeyEvent.ACTION_DOWN) moveFocus(keyCode);
+            next();
+        }
+
+        /**
+         * Moves focus the way the window does for unhandled D-pad keys
+         */
+        private void moveFocus(int keyCode) {
+            final int direction;
+            switch (keyCode) {
+                case KeyEvent.KEYCODE_DPAD_LEFT:
+                    direction = View.FOCUS_LEFT;
+                    break;
+                case KeyEvent.KEYCODE_DPAD_RIGHT:
+                    direction = View.FOCUS_RIGHT;
+                    break;
+                case KeyEvent.KEYCODE_DPAD_UP:
+                    direction = View.FOCUS_UP;
+                    break;
+                case KeyEvent.KEYCODE_DPAD_DOWN:
+                    direction = View.FOCUS_DOWN;
+                    break;
+                default:
+                    return;
+            }
+
+            final View focused = mGrid.findFocus();
+            if (focused == null) return;
+
+            View next = focused.focusSearch(direction);
+            if (next == null) next = FocusFinder.getInstance().findNextFocus(mGrid, focused, direction);
+            if (next != null) next.requestFocus(direction);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Sticky header for vertical grids. Draws the key of the section at the top of the
+ * grid and pushes it up when the next section reaches it. The header is drawn
+ * straight onto the canvas, so no header views are inflated or bound.
+ */
+@SuppressWarnings("unused")
+public class SectionHeaderDecoration extends RecyclerView.ItemDecoration {
+
+    private final SectionIndex mIndex;
+    private final Paint mTextPaint;
+    private final Paint mBackgroundPaint = new Paint();
+    private final int mHeight;
+    private final int mPadding;
+
+    private Object mLabelKey;
+    private String mLabel;
+
+    /**
+     * @param index section index of the adapter
+     * @param textPaint paint for the section key
+     * @param backgroundColor color behind the key
+     * @param height height of the header in pixels
+     * @param padding start padding of the key in pixels
+     */
+    public SectionHeaderDecoration(SectionIndex index, Paint textPaint, int backgroundColor, int height, int padding) {
+        mIndex = index;
+        mTextPaint = textPaint;
+        mBackgroundPaint.setColor(backgroundColor);
+        mHeight = height;
+        mPadding = padding;
+    }
+
+    @Override
+    public void onDrawOver(Canvas c, RecyclerView parent, RecyclerView.State state) {
+        if (parent.getChildCount() == 0) return;
+
+        final int position = parent.getChildAdapterPosition(parent.getChildAt(0));
+        if (position == RecyclerView.NO_POSITION) return;
+
+        final int section = mIndex.getSectionForPosition(position);
+        if (section < 0) return;
+
+        int top = parent.getPaddingTop();
+        if (section + 1 < mIndex.getSectionCount()) {
+            RecyclerView.ViewHolder next = parent.findViewHolderForAdapterPosition(mIndex.getSectionStart(section + 1));
+            if (next != null) {
+                final View view = next.itemView;
+                top = Math.min(top, view.getTop() - mHeight);
+            }
+        }
+
+        final int left = parent.getPaddingLeft();
+        final int right = parent.getWidth() - parent.getPaddingRight();
+        c.drawRect(left, top, right, top + mHeight, mBackgroundPaint);
+
+        final float baseline = top + (mHeight - mTextPaint.descent() - mTextPaint.ascent()) / 2;
+        c.drawText(getLabel(section), left + mPadding, baseline, mTextPaint);
+    }
+
+    /**
+     * @return text of the section key, built again only when the section or its key changes
+     */
+    private String getLabel(int section) {
+        final Object key = mIndex.getSectionKey(section);
+        if (mLabel == null || key != mLabelKey) {
+            mLabel = String.valueOf(key);
+            mLabelKey = key;
+        }
+        return mLabel;
+    }
+}
@@ -0,0 +1,176 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.support.v7.widget.RecyclerView;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Maps section keys, like letters or genres, to ranges of adapter positions.
+ * Looking up a key is a hash lookup. Finding the section of a position is a
+ * binary search over the section starts.
+ *
+ * The index registers itself on the adapter and follows its item range
+ * notifications, so inserts and removes only shift the section starts.
+ * Items inserted at a section boundary join the preceding section. Call
+ * {@link #release()} when the index is dropped before its adapter.
+ *
+ * notifyDataSetChanged does not say what changed, so the index can not
+ * rebuild itself. The adapter must call setSections with the new sections,
+ * before or after notifying. Until then the old sections are only clamped
+ * to the new item count.
+ */
+@SuppressWarnings("unused")
+public final class SectionIndex extends RecyclerView.AdapterDataObserver {
+
+    private final RecyclerView.Adapter mAdapter;
+    private boolean mRegistered;
+
+    private final HashMap<Object, Integer> mSectionsByKey = new HashMap<>();
+    private Object[] mKeys = new Object[0];
+    private int[] mStarts = new int[0];
+    private int mItemCount;
+
+    /**
+     * @param adapter adapter whose item notifications keep the index up to date
+     */
+    public SectionIndex(RecyclerView.Adapter adapter) {
+        mAdapter = adapter;
+        adapter.registerAdapterDataObserver(this);
+        mRegistered = true;
+    }
+
+    /**
+     * Stops following the adapter's notifications, so the adapter no longer holds the index
+     */
+    public void release() {
+        if (!mRegistered) return;
+
+        mAdapter.unregisterAdapterDataObserver(this);
+        mRegistered = false;
+    }
+
+    /**
+     * Replaces every section
+     *
+     * @param keys section keys in adapter order
+     * @param starts first adapter position of each section, ascending
+     * @param itemCount item count of the adapter
+     */
+    public void setSections(Object[] keys, int[] starts, int itemCount) {
+        if (keys.length != starts.length) {
+            throw new IllegalArgumentException("Every section key needs a start position");
+        }
+        for (int i = 1; i < starts.length; i++) {
+            if (starts[i] < starts[i - 1]) throw new IllegalArgumentException("Section starts must be ascending");
+        }
+
+        mKeys = keys.clone();
+        mStarts = starts.clone();
+        mItemCount = itemCount;
+
+        mSectionsByKey.clear();
+        for (int i = 0; i < keys.length; i++) {
+            mSectionsByKey.put(keys[i], i);
+        }
+    }
+
+    public int getSectionCount() {
+        return mKeys.length;
+    }
+
+    public Object getSectionKey(int section) {
+        return mKeys[section];
+    }
+
+    /**
+     * @return section of the key, or -1 if there is none
+     */
+    public int getSectionForKey(Object key) {
+        Integer section = mSectionsByKey.get(key);
+        return section == null ? -1 : section;
+    }
+
+    public int getSectionStart(int section) {
+        return mStarts[section];
+    }
+
+    public int getSectionSize(int section) {
+        final int end = section + 1 < mStarts.length ? mStarts[section + 1] : mItemCount;
+        return end - mStarts[section];
+    }
+
+    /**
+     * @return first position of the section with the given key, or
+     * RecyclerView.NO_POSITION if it is unknown or empty
+     */
+    public int getPositionForKey(Object key) {
+        final int section = getSectionForKey(key);
+        if (section == -1 || getSectionSize(section) == 0) return RecyclerView.NO_POSITION;
+        return mStarts[section];
+    }
+
+    /**
+     * @return section containing the position, or -1 if it comes before the first section
+     */
+    public int getSectionForPosition(int position) {
+        int section = Arrays.binarySearch(mStarts, position);
+        if (section < 0) return -section - 2;
+
+        // Empty sections share their start with the next one, report the last of them
+        while (section + 1 < mStarts.length && mStarts[section + 1] == position) section++;
+        return section;
+    }
+
+    @Override
+    public void onChanged() {
+        // Sections set before notifying already match the new item count
+        final int itemCount = mAdapter.getItemCount();
+        if (itemCount == mItemCount) return;
+
+        for (int i = 0; i < mStarts.length; i++) {
+            if (mStarts[i] > itemCount) mStarts[i] = itemCount;
+        }
+        mItemCount = itemCount;
+    }
+
+    @Override
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+        for (int i = 0; i < mStarts.length; i++) {
+            if (mStarts[i] > positionStart) mStarts[i] += itemCount;
+        }
+        mItemCount += itemCount;
+    }
+
+    @Override
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+        final int positionEnd = positionStart + itemCount;
+        for (int i = 0; i < mStarts.length; i++) {
+            if (mStarts[i] >= positionEnd) mStarts[i] -= itemCount;
+            else if (mStarts[i] > positionStart) mStarts[i] = positionStart;
+        }
+        mItemCount -= itemCount;
+    }
+
+    @Override
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        onItemRangeRemoved(fromPosition, itemCount);
+        onItemRangeInserted(toPosition, itemCount);
+    }
+}
@@ -0,0 +1,29 @@
+package info.awesomedevelopment.tvgrid.library;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Implemented by adapters that group their items into sections, enabling
+ * {@link TVGridView#jumpToSection(Object, int)} and {@link SectionHeaderDecoration}.
+ */
+public interface SectionedAdapter {
+
+    /**
+     * @return the section index of this adapter, created with the adapter itself
+     */
+    SectionIndex getSectionIndex();
+}
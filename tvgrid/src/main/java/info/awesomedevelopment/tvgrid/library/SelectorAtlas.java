@@ -0,0 +1,272 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.util.SparseArray;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * One shared bitmap holding every selector variant of a style. Regions are
+ * packed on shelves. When a new variant does not fit, the atlas grows and
+ * re-packs by copying the existing regions, so once every size in use has been
+ * seen, navigation never changes the bitmap and never uploads a new texture.
+ * At its maximum size the least recently used sizes are dropped to make room.
+ *
+ * Atlases are counted against the {@link SelectorCache} budget. Once the cache
+ * evicts an atlas and no grid draws one of its renderings, it is collected.
+ *
+ * Except for forKey and the byte counts and cache key read by SelectorCache, all methods
+ * must be called while holding the atlas lock.
+ */
+final class SelectorAtlas {
+
+    private static final int INITIAL_SIZE = 512;
+    private static final int MAX_BYTES = 4 * 1024 * 1024;
+    private static final int GUTTER = 2;
+
+    private static final HashMap<String, WeakReference<SelectorAtlas>> sAtlases = new HashMap<>();
+
+    private final String mKey;
+    private final Bitmap.Config mConfig;
+    private final int mMaxSize;
+
+    private volatile Bitmap mBitmap;
+    private final ArrayList<Rect> mRegions = new ArrayList<>();
+    private final SparseArray<SelectorRendering> mRenderings = new SparseArray<>();
+    private int mUseCount;
+
+    // Size the cache counted this atlas at, guarded by the cache lock
+    private int mCountedBytes;
+
+    private Shelves mShelves = new Shelves();
+
+    /**
+     * Shelf packer state, kept separate so a failed re-pack leaves the current layout intact
+     */
+    private static final class Shelves {
+
+        private final ArrayList<int[]> mShelves = new ArrayList<>();
+        private int mBottom;
+
+        /**
+         * Finds a spot on an existing shelf or opens a new one
+         */
+        boolean place(int w, int h, int width, int height, Rect out) {
+            final int pw = w + GUTTER;
+            final int ph = h + GUTTER;
+
+            for (int[] shelf : mShelves) {
+                if (shelf[1] >= ph && shelf[1] <= ph * 2 && shelf[2] + pw <= width) {
+                    out.set(shelf[2], shelf[0], shelf[2] + w, shelf[0] + h);
+                    shelf[2] += pw;
+                    return true;
+                }
+            }
+
+            if (mBottom + ph > height || pw > width) return false;
+
+            out.set(0, mBottom, w, mBottom + h);
+            mShelves.add(new int[] {mBottom, ph, pw});
+            mBottom += ph;
+            return true;
+        }
+    }
+
+    private SelectorAtlas(String key, Bitmap.Config config) {
+        mKey = key;
+        mConfig = config;
+        mMaxSize = config == Bitmap.Config.ALPHA_8 ? 2048 : 1024;
+        mBitmap = Bitmap.createBitmap(INITIAL_SIZE, INITIAL_SIZE, config);
+    }
+
+    /**
+     * @param key style key, including render mode and shadow, see {@link SelectorStyle#getAtlasKey}
+     * @param config bitmap config of the atlas
+     * @return the atlas for the given style, marked as recently used in the cache
+     */
+    static SelectorAtlas forKey(String key, Bitmap.Config config) {
+        synchronized (sAtlases) {
+            WeakReference<SelectorAtlas> reference = sAtlases.get(key);
+            SelectorAtlas atlas = reference == null ? null : reference.get();
+            if (atlas == null) {
+                // Drop the entries of atlases that have been collected
+                Iterator<WeakReference<SelectorAtlas>> it = sAtlases.values().iterator();
+                while (it.hasNext()) {
+                    if (it.next().get() == null) it.remove();
+                }
+
+                atlas = new SelectorAtlas("atlas:" + key, config);
+                sAtlases.put(key, new WeakReference<>(atlas));
+            }
+            SelectorCache.putAtlas(atlas);
+            return atlas;
+        }
+    }
+
+    Bitmap getBitmap() {
+        return mBitmap;
+    }
+
+    /**
+     * @return key of the atlas in the selector cache
+     */
+    String getCacheKey() {
+        return mKey;
+    }
+
+    int getCountedByteCount() {
+        return mCountedBytes;
+    }
+
+    void setCountedByteCount(int bytes) {
+        mCountedBytes = bytes;
+    }
+
+    /**
+     * @return bytes of the atlas bitmap, safe to call without the atlas lock
+     */
+    int getByteCount() {
+        final Bitmap bitmap = mBitmap;
+        return bitmap.getRowBytes() * bitmap.getHeight();
+    }
+
+    SelectorRendering get(int w, int h) {
+        SelectorRendering rendering = mRenderings.get(sizeKey(w, h));
+        if (rendering != null) rendering.setLastUse(++mUseCount);
+        return rendering;
+    }
+
+    void put(int w, int h, SelectorRendering rendering) {
+        rendering.setLastUse(++mUseCount);
+        mRenderings.put(sizeKey(w, h), rendering);
+    }
+
+    private static int sizeKey(int w, int h) {
+        return (w << 16) | (h & 0xFFFF);
+    }
+
+    /**
+     * Reserves a region, growing and re-packing the atlas when the region does not fit.
+     * When the atlas is at its maximum size, the least recently used sizes are dropped
+     * one at a time until the region fits. Only the renderings of those sizes are
+     * invalidated, every other rendering keeps drawing.
+     *
+     * @return region in atlas coordinates, or null if the size can never fit
+     */
+    Rect allocate(int w, int h) {
+        if (w + GUTTER > mMaxSize || h + GUTTER > mMaxSize) return null;
+
+        Rect region = new Rect();
+        while (!mShelves.place(w, h, mBitmap.getWidth(), mBitmap.getHeight(), region)) {
+            if (grow()) continue;
+            if (!evictEldest()) return null;
+        }
+        mRegions.add(region);
+        return region;
+    }
+
+    /**
+     * Returns a region reserved by allocate that ended up unused. Its space is
+     * reclaimed the next time the atlas re-packs.
+     */
+    void free(Rect region) {
+        mRegions.remove(region);
+    }
+
+    /**
+     * Doubles the shorter side until everything fits
+     *
+     * @return false if the atlas is at its maximum size
+     */
+    private boolean grow() {
+        int width = mBitmap.getWidth();
+        int height = mBitmap.getHeight();
+        final int bytesPerPixel = mConfig == Bitmap.Config.ALPHA_8 ? 1 : 4;
+
+        while (true) {
+            if (width <= height) width *= 2;
+            else height *= 2;
+            if (width > mMaxSize || height > mMaxSize || width * height * bytesPerPixel > MAX_BYTES) return false;
+
+            if (repack(width, height)) {
+                // Let the cache count the new size
+                SelectorCache.putAtlas(this);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Invalidates the least recently used size, frees its regions and re-packs the rest
+     *
+     * @return false if there was nothing left to drop
+     */
+    private boolean evictEldest() {
+        if (mRenderings.size() == 0) return false;
+
+        int eldest = 0;
+        for (int i = 1; i < mRenderings.size(); i++) {
+            if (mRenderings.valueAt(i).getLastUse() < mRenderings.valueAt(eldest).getLastUse()) eldest = i;
+        }
+
+        // A grid still drawing it resolves its selector again on the next frame
+        SelectorRendering rendering = mRenderings.valueAt(eldest);
+        mRenderings.removeAt(eldest);
+        rendering.invalidate();
+        for (int i = 0; i < rendering.getSourceCount(); i++) {
+            Rect source = rendering.getSource(i);
+            if (source != null) mRegions.remove(source);
+        }
+
+        // A failed re-pack keeps the old layout, the next eviction tries again
+        repack(mBitmap.getWidth(), mBitmap.getHeight());
+        return true;
+    }
+
+    /**
+     * Packs the current regions into a new bitmap of the given size and copies them across
+     *
+     * @return false if the regions do not fit, leaving the current layout intact
+     */
+    private boolean repack(int width, int height) {
+        Rect[] packed = new Rect[mRegions.size()];
+        Shelves shelves = new Shelves();
+        for (int i = 0; i < packed.length; i++) {
+            Rect region = mRegions.get(i);
+            packed[i] = new Rect();
+            if (!shelves.place(region.width(), region.height(), width, height, packed[i])) return false;
+        }
+
+        Bitmap bitmap = Bitmap.createBitmap(width, height, mConfig);
+        Canvas canvas = new Canvas(bitmap);
+        for (int i = 0; i < packed.length; i++) {
+            Rect region = mRegions.get(i);
+            canvas.drawBitmap(mBitmap, region, packed[i], null);
+            region.set(packed[i]);
+        }
+        mBitmap = bitmap;
+        mShelves = shelves;
+        return true;
+    }
+}
@@ -0,0 +1,130 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.support.v4.util.LruCache;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Process wide cache of selector renderings, sized in kilobytes. Shared by all
+ * grids so that interned styles only rasterize once. Every grid requests its own
+ * budget and the cache is sized to the largest budget of the grids that are
+ * attached, so one grid lowering its quality does not evict the others.
+ * Selector atlases are counted against the same budget.
+ */
+final class SelectorCache {
+
+    private static LruCache<String, Object> sCache;
+    private static int sBudgetKb;
+    private static int sMisses;
+    private static final WeakHashMap<Object, Integer> sBudgets = new WeakHashMap<>();
+
+    private SelectorCache() {
+    }
+
+    /**
+     * Sets the budget one owner needs and resizes the cache to the largest live budget
+     *
+     * @param owner grid requesting the budget, held weakly
+     * @param budgetKb budget in kilobytes
+     */
+    static synchronized void requestBudget(Object owner, int budgetKb) {
+        sBudgets.put(owner, budgetKb);
+        applyBudgets();
+    }
+
+    /**
+     * Drops the budget of an owner, shrinking the cache if it had the largest one
+     */
+    static synchronized void releaseBudget(Object owner) {
+        if (sBudgets.remove(owner) != null) applyBudgets();
+    }
+
+    private static void applyBudgets() {
+        int budgetKb = 0;
+        for (Integer budget : sBudgets.values()) {
+            budgetKb = Math.max(budgetKb, budget);
+        }
+        if (budgetKb > 0) setBudget(budgetKb);
+    }
+
+    /**
+     * Resizes the cache, keeping the most recently used entries that still fit
+     *
+     * @param budgetKb new budget in kilobytes
+     */
+    private static void setBudget(int budgetKb) {
+        if (budgetKb == sBudgetKb && sCache != null) return;
+
+        LruCache<String, Object> cache = new LruCache<String, Object>(budgetKb) {
+            @Override
+            protected int sizeOf(String key, Object value) {
+                final int bytes = value instanceof SelectorAtlas
+                        ? ((SelectorAtlas) value).getCountedByteCount() : ((SelectorRendering) value).getByteCount();
+                return Math.max(1, bytes / 1024);
+            }
+        };
+        if (sCache != null) {
+            for (Map.Entry<String, Object> entry : sCache.snapshot().entrySet()) {
+                cache.put(entry.getKey(), entry.getValue());
+            }
+        }
+        sCache = cache;
+        sBudgetKb = budgetKb;
+    }
+
+    static synchronized SelectorRendering get(String key) {
+        Object value = sCache == null ? null : sCache.get(key);
+        if (!(value instanceof SelectorRendering)) {
+            sMisses++;
+            return null;
+        }
+        return (SelectorRendering) value;
+    }
+
+    /**
+     * @return lookups that found nothing since the process started
+     */
+    static synchronized int getMissCount() {
+        return sMisses;
+    }
+
+    static synchronized void put(String key, SelectorRendering rendering) {
+        if (sCache != null) sCache.put(key, rendering);
+    }
+
+    /**
+     * Counts an atlas against the budget and marks it as recently used. Put it again
+     * after it grew to update its size. Evicting it only drops the reference of the
+     * cache, renderings that are still drawn keep the atlas alive.
+     */
+    static synchronized void putAtlas(SelectorAtlas atlas) {
+        if (sCache == null) return;
+
+        final String key = atlas.getCacheKey();
+        final int bytes = atlas.getByteCount();
+        // The lookup marks it as recently used
+        if (sCache.get(key) == atlas && atlas.getCountedByteCount() == bytes) return;
+
+        // Removed at the size it was counted at, then put at the new one
+        sCache.remove(key);
+        atlas.setCountedByteCount(bytes);
+        sCache.put(key, atlas);
+    }
+}
@@ -0,0 +1,194 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.NonNull;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Draws a {@link SelectorRendering}, holding every state variant of one selector geometry.
+ * The variants are prepared up front, so changing state is a level flip
+ * that neither re-renders nor touches the cache.
+ *
+ * In bitmap mode there is one ARGB bitmap per state. In mask mode the shape is
+ * rasterized once into ALPHA_8 masks and every state is a set of colors applied
+ * through the paint at draw time.
+ *
+ * Atlased renderings draw a sub-region of the shared atlas bitmap instead.
+ *
+ * A style with a glow also draws a blurred glow behind the selector, outside its
+ * bounds. The glow is rendered in the background and appears through
+ * invalidateSelf once it is ready.
+ */
+class SelectorDrawable extends Drawable implements SelectorGlow.Listener {
+
+    static final int LEVEL_FOCUSED = 0;
+    static final int LEVEL_SELECTED = 1;
+    static final int LEVEL_CLICKED = 2;
+    static final int LEVEL_COUNT = 3;
+
+    private static final int SHADOW_COLOR = Color.argb((int) Math.ceil(0.5 * 255), 0, 0, 0);
+
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private SelectorRendering mRendering;
+
+    private int[] mStrokeColors;
+    private int[] mFillColors;
+
+    private SelectorStyle mStyle;
+    private boolean mGlowEnabled;
+    private Bitmap mGlow;
+    private final Rect mGlowBounds = new Rect();
+
+    private int mAlpha = 255;
+
+    /**
+     * @param focused true if the view is focused
+     * @param clicked true if the view is clicked
+     * @return the level matching the given state
+     */
+    static int levelFor(boolean focused, boolean clicked) {
+        return clicked ? LEVEL_CLICKED : focused ? LEVEL_FOCUSED : LEVEL_SELECTED;
+    }
+
+    /**
+     * Swaps the rendering drawn by this drawable. Renderings are shared, so
+     * this never copies bitmaps.
+     *
+     * @param rendering rendering to draw
+     * @param style style providing the colors used in mask mode
+     * @param glow true to draw the glow of the style, if it has one
+     */
+    void setRendering(SelectorRendering rendering, SelectorStyle style, boolean glow) {
+        mRendering = rendering;
+        mStyle = style;
+        mStrokeColors = style.getStateStrokeColors();
+        mFillColors = style.getStateFillColors();
+
+        mGlowEnabled = glow && style.hasGlow();
+        mGlow = mGlowEnabled ? SelectorGlow.obtain(style, rendering.getWidth(), rendering.getHeight(), this) : null;
+    }
+
+    @Override
+    public void onGlowReady(String key, Bitmap glow) {
+        if (!mGlowEnabled || mGlow != null) return;
+
+        // Requested for an earlier style or size, the current request is still on its way
+        if (!key.equals(SelectorGlow.key(mStyle, mRendering.getWidth(), mRendering.getHeight()))) return;
+
+        mGlow = glow;
+        invalidateSelf();
+    }
+
+    /**
+     * @return how far the glow reaches outside the bounds, 0 without a glow
+     */
+    int getGlowOutset() {
+        return mGlowEnabled ? (int) Math.ceil(mStyle.getGlowRadius()) : 0;
+    }
+
+    SelectorRendering getRendering() {
+        return mRendering;
+    }
+
+    @Override
+    protected boolean onLevelChange(int level) {
+        return level >= 0 && level < LEVEL_COUNT;
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        final int level = getLevel();
+        if (mRendering == null || level < 0 || level >= LEVEL_COUNT) return;
+
+        if (mGlow != null) {
+            final int outset = getGlowOutset();
+            mGlowBounds.set(getBounds());
+            mGlowBounds.inset(-outset, -outset);
+            drawTinted(canvas, mGlow, null, mGlowBounds, mStyle.getGlowColor());
+        }
+
+        if (mRendering.isMask()) {
+            drawMask(canvas, SelectorRendering.MASK_STROKE, mStrokeColors[level]);
+            drawMask(canvas, SelectorRendering.MASK_SHADOW, SHADOW_COLOR);
+            drawMask(canvas, SelectorRendering.MASK_FILL, mFillColors[level]);
+            return;
+        }
+
+        final Bitmap variant = mRendering.getVariant(level);
+        if (variant == null) return;
+
+        mPaint.setAlpha(mAlpha);
+        canvas.drawBitmap(variant, mRendering.getSource(level), getBounds(), mPaint);
+    }
+
+    private void drawMask(Canvas canvas, int index, int color) {
+        final Bitmap mask = mRendering.getMask(index);
+        if (mask == null) return;
+
+        drawTinted(canvas, mask, mRendering.getSource(index), getBounds(), color);
+    }
+
+    private void drawTinted(Canvas canvas, Bitmap mask, Rect source, Rect bounds, int color) {
+        mPaint.setColor(color);
+        mPaint.setAlpha(Color.alpha(color) * mAlpha / 255);
+        canvas.drawBitmap(mask, source, bounds, mPaint);
+    }
+
+    @NonNull
+    @Override
+    public Rect getDirtyBounds() {
+        final int outset = getGlowOutset();
+        if (outset == 0) return getBounds();
+
+        mGlowBounds.set(getBounds());
+        mGlowBounds.inset(-outset, -outset);
+        return mGlowBounds;
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return mRendering == null ? -1 : mRendering.getWidth();
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return mRendering == null ? -1 : mRendering.getHeight();
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mAlpha = alpha;
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        mPaint.setColorFilter(colorFilter);
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+}
@@ -0,0 +1,162 @@
+package info.awesomedevelopment.tvgrid.library;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Selector geometry on plain ints. A rect is an int[4] indexed by LEFT, TOP, RIGHT
+ * and BOTTOM, and every result is written into a caller-provided array, so no
+ * method allocates. Nothing here touches Android classes, not even the TVGridView
+ * annotations, so it compiles, runs and benchmarks on a plain JVM.
+ */
+public final class SelectorGeometry {
+
+    public static final int LEFT = 0;
+    public static final int TOP = 1;
+    public static final int RIGHT = 2;
+    public static final int BOTTOM = 3;
+
+    /**
+     * Stroke positions, same values as TVGridView.INSIDE, CENTER and OUTSIDE
+     */
+    public static final int STROKE_INSIDE = 0;
+    public static final int STROKE_CENTER = 1;
+    public static final int STROKE_OUTSIDE = 2;
+
+    /**
+     * Offset value meaning "no offset", as passed to selectView and clickView
+     */
+    public static final int NO_OFFSET = -1;
+
+    private SelectorGeometry() {
+    }
+
+    /**
+     * Computes the selector bounds around a cell
+     *
+     * @param left left of the cell in grid coordinates
+     * @param top top of the cell in grid coordinates
+     * @param width width of the cell
+     * @param height height of the cell
+     * @param strokePosition one of STROKE_INSIDE, STROKE_CENTER or STROKE_OUTSIDE
+     * @param strokeWidth stroke width in pixels
+     * @param spacingLeft spacing pushing the selector outwards on the left edge
+     * @param spacingTop spacing pushing the selector outwards on the top edge
+     * @param spacingRight spacing pushing the selector outwards on the right edge
+     * @param spacingBottom spacing pushing the selector outwards on the bottom edge
+     * @param offsetX offset in x direction, NO_OFFSET for none
+     * @param offsetY offset in y direction, NO_OFFSET for none
+     * @param out receives the bounds
+     */
+    public static void computeBounds(int left, int top, int width, int height,
+                                     int strokePosition, float strokeWidth,
+                                     float spacingLeft, float spacingTop, float spacingRight, float spacingBottom,
+                                     int offsetX, int offsetY, int[] out) {
+        final int spacing = strokeSpacing(strokePosition, strokeWidth);
+
+        final int scaledWidth = width + spacing;
+        final int scaledHeight = height + spacing;
+        final int scaledTop = top - ((scaledHeight - height) / 2) + resolveOffset(offsetY);
+        final int scaledLeft = left - ((scaledWidth - width) / 2) + resolveOffset(offsetX);
+
+        out[LEFT] = (int) (scaledLeft - spacingLeft);
+        out[TOP] = (int) (scaledTop - spacingTop);
+        out[RIGHT] = (int) (scaledLeft + scaledWidth + spacingRight);
+        out[BOTTOM] = (int) (scaledTop + scaledHeight + spacingBottom);
+    }
+
+    /**
+     * @return how much the stroke grows the selector, summed over both edges of an axis
+     */
+    public static int strokeSpacing(int strokePosition, float strokeWidth) {
+        switch (strokePosition) {
+            case STROKE_CENTER:
+                return (int) strokeWidth;
+            case STROKE_OUTSIDE:
+                return (int) strokeWidth * 2;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * @return the offset, or 0 for NO_OFFSET
+     */
+    public static int resolveOffset(int offset) {
+        return offset == NO_OFFSET ? 0 : offset;
+    }
+
+    /**
+     * @return true if at least one of the offsets is set
+     */
+    public static boolean hasOffset(int offsetX, int offsetY) {
+        return offsetX != NO_OFFSET || offsetY != NO_OFFSET;
+    }
+
+    /**
+     * Interpolates every edge between two rects
+     *
+     * @param fraction interpolated fraction, 0 is from and 1 is to
+     * @param out receives the result, may be the same array as from or to
+     */
+    public static void interpolate(int[] from, int[] to, float fraction, int[] out) {
+        for (int i = LEFT; i <= BOTTOM; i++) {
+            out[i] = (int) (from[i] + (to[i] - from[i]) * fraction);
+        }
+    }
+
+    /**
+     * Scales a rect around a pivot, as View scaleX and scaleY would
+     */
+    public static void scale(int[] bounds, float scale, float pivotX, float pivotY) {
+        bounds[LEFT] = (int) (pivotX + (bounds[LEFT] - pivotX) * scale);
+        bounds[TOP] = (int) (pivotY + (bounds[TOP] - pivotY) * scale);
+        bounds[RIGHT] = (int) (pivotX + (bounds[RIGHT] - pivotX) * scale);
+        bounds[BOTTOM] = (int) (pivotY + (bounds[BOTTOM] - pivotY) * scale);
+    }
+
+    /**
+     * Moves a rect, for example with scrolled content
+     */
+    public static void offset(int[] bounds, int dx, int dy) {
+        bounds[LEFT] += dx;
+        bounds[TOP] += dy;
+        bounds[RIGHT] += dx;
+        bounds[BOTTOM] += dy;
+    }
+
+    /**
+     * Moves a rect to a new top left corner, keeping its size
+     */
+    public static void offsetTo(int[] bounds, int left, int top) {
+        offset(bounds, left - bounds[LEFT], top - bounds[TOP]);
+    }
+
+    public static void set(int[] out, int left, int top, int right, int bottom) {
+        out[LEFT] = left;
+        out[TOP] = top;
+        out[RIGHT] = right;
+        out[BOTTOM] = bottom;
+    }
+
+    public static int width(int[] bounds) {
+        return bounds[RIGHT] - bounds[LEFT];
+    }
+
+    public static int height(int[] bounds) {
+        return bounds[BOTTOM] - bounds[TOP];
+    }
+}
@@ -0,0 +1,106 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.graphics.Bitmap;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Blurred glow bitmaps, computed once per geometry on a background thread and
+ * kept in {@link SelectorCache}. The glow is an ALPHA_8 mask tinted while
+ * drawing, so on screen it costs one blit and a color change needs no new blur.
+ */
+final class SelectorGlow {
+
+    /**
+     * Notified on the UI thread when a requested glow is ready. The glow is handed
+     * over directly, the cache may already have evicted it.
+     */
+    interface Listener {
+        /**
+         * @param key key of the glow, see {@link #key(SelectorStyle, int, int)}
+         * @param glow the rendered glow
+         */
+        void onGlowReady(String key, Bitmap glow);
+    }
+
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+    private static final HashMap<String, ArrayList<Listener>> sPending = new HashMap<>();
+
+    private SelectorGlow() {
+    }
+
+    /**
+     * Returns the cached glow, or starts rendering it and returns null
+     *
+     * @param listener receives the glow once it is rendered
+     * @return glow bitmap, or null while it is being rendered
+     */
+    static Bitmap obtain(final SelectorStyle style, final int w, final int h, Listener listener) {
+        final String key = key(style, w, h);
+
+        SelectorRendering rendering = SelectorCache.get(key);
+        if (rendering != null) return rendering.getGlow();
+
+        synchronized (sPending) {
+            ArrayList<Listener> listeners = sPending.get(key);
+            if (listeners != null) {
+                if (!listeners.contains(listener)) listeners.add(listener);
+                return null;
+            }
+
+            listeners = new ArrayList<>();
+            listeners.add(listener);
+            sPending.put(key, listeners);
+        }
+
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap glow = SelectorRenderer.renderGlow(style, w, h);
+                SelectorCache.put(key, SelectorRendering.fromGlow(glow, w, h));
+                sMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        ArrayList<Listener> listeners;
+                        synchronized (sPending) {
+                            listeners = sPending.remove(key);
+                        }
+                        if (listeners == null) return;
+
+                        for (Listener listener : listeners) {
+                            listener.onGlowReady(key, glow);
+                        }
+                    }
+                });
+            }
+        });
+        return null;
+    }
+
+    /**
+     * @return key of the glow of a style at the given size
+     */
+    static String key(SelectorStyle style, int w, int h) {
+        return "glow:" + style.getGlowKey() + ':' + w + 'x' + h;
+    }
+}
@@ -0,0 +1,82 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.os.SystemClock;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Follows one key press through the selector: from the key event to the first
+ * frame drawing the moved selector, and from that frame to the selector
+ * animation settling. A newer key press abandons the samples of the previous one.
+ * Only used on the UI thread, the histograms may be read from anywhere.
+ */
+final class SelectorLatency {
+
+    private final LatencyHistogram mFirstFrame = new LatencyHistogram();
+    private final LatencyHistogram mSettle = new LatencyHistogram();
+
+    private long mKeyTime = -1;
+    private long mFrameTime = -1;
+    private boolean mMoved;
+    private boolean mAnimated;
+
+    LatencyHistogram getFirstFrame() {
+        return mFirstFrame;
+    }
+
+    LatencyHistogram getSettle() {
+        return mSettle;
+    }
+
+    /**
+     * @param eventTime uptime of the key event in milliseconds
+     */
+    void onKeyDown(long eventTime) {
+        mKeyTime = eventTime;
+        mFrameTime = -1;
+        mMoved = false;
+    }
+
+    /**
+     * @param animated true if an animation settles the selector later, false if it is
+     * placed at once. Slides report settling, on the grid and on the layer,
+     * while fades record no settle sample.
+     */
+    void onSelectorMoved(boolean animated) {
+        if (mKeyTime < 0) return;
+        mMoved = true;
+        mAnimated = animated;
+    }
+
+    void onSelectorDrawn() {
+        if (!mMoved) return;
+
+        final long now = SystemClock.uptimeMillis();
+        mFirstFrame.record(now - mKeyTime);
+        mKeyTime = -1;
+        mMoved = false;
+
+        if (mAnimated) mFrameTime = now;
+        else mSettle.record(0);
+    }
+
+    void onSelectorSettled() {
+        if (mFrameTime < 0) return;
+        mSettle.record(SystemClock.uptimeMillis() - mFrameTime);
+        mFrameTime = -1;
+    }
+}
@@ -0,0 +1,260 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.animation.TimeInterpolator;
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.animation.AnimationUtils;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Hosts the selector in its own hardware layer inside the grid's overlay.
+ * The layer is laid out at the target bounds and starts out translated and
+ * scaled onto the previous bounds. Each frame only updates translation and
+ * scale, so the selector is never redrawn.
+ *
+ * On API 21+ {@link #animate(long, TimeInterpolator)} hands translation and
+ * scale to a ViewPropertyAnimator without listeners, which the framework
+ * runs on the render thread, so the slide keeps going while the UI thread
+ * stalls. Older versions drive the slide with {@link #setFraction(float)}
+ * from a UI thread animator.
+ *
+ * The fraction is kept, or derived from the animation clock on the render
+ * thread, so a retarget mid-flight starts from where the selector is on screen.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+final class SelectorLayer {
+
+    private final ViewGroup mHost;
+    private final SelectorDrawable mDrawable;
+    private final LayerView mView;
+
+    private final int[] mFrom = new int[4];
+    private final int[] mTo = new int[4];
+    private final int[] mCurrent = new int[4];
+    private float mStartTranslationX;
+    private float mStartTranslationY;
+    private float mStartScaleX;
+    private float mStartScaleY;
+    private float mFraction = 1f;
+    private long mStartTime;
+    private long mDuration;
+    private TimeInterpolator mInterpolator;
+
+    private boolean mShowing;
+
+    SelectorLayer(ViewGroup host, SelectorDrawable drawable) {
+        mHost = host;
+        mDrawable = drawable;
+        mView = new LayerView(host.getContext(), drawable);
+        mView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        mView.setPivotX(0);
+        mView.setPivotY(0);
+    }
+
+    boolean isShowing() {
+        return mShowing;
+    }
+
+    /**
+     * Places the layer at the given bounds without animating
+     */
+    void show(Rect bounds) {
+        cancel();
+        attach();
+        layout(bounds);
+
+        mStartTranslationX = 0;
+        mStartTranslationY = 0;
+        mStartScaleX = 1;
+        mStartScaleY = 1;
+        setFraction(1f);
+
+        setRect(mFrom, bounds);
+        setRect(mTo, bounds);
+        mView.invalidate();
+    }
+
+    /**
+     * Lays the layer out at the target and places it over the start bounds,
+     * call animate or setFraction to move it
+     *
+     * @param from bounds the selector is drawn at now
+     * @param to target bounds
+     */
+    void start(Rect from, Rect to) {
+        cancel();
+        attach();
+        layout(to);
+
+        final int outset = mView.mOutset * 2;
+        mStartTranslationX = from.left - to.left;
+        mStartTranslationY = from.top - to.top;
+        mStartScaleX = to.width() == 0 ? 1 : (float) (from.width() + outset) / (to.width() + outset);
+        mStartScaleY = to.height() == 0 ? 1 : (float) (from.height() + outset) / (to.height() + outset);
+        setFraction(0f);
+        mView.invalidate();
+
+        setRect(mFrom, from);
+        setRect(mTo, to);
+    }
+
+    /**
+     * Slides the layer to the target on the render thread. No listener may be
+     * added, the framework falls back to the UI thread for animators with listeners.
+     */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    void animate(long duration, TimeInterpolator interpolator) {
+        mStartTime = AnimationUtils.currentAnimationTimeMillis();
+        mDuration = duration;
+        mInterpolator = interpolator;
+        mView.animate()
+                .translationX(0).translationY(0)
+                .scaleX(1).scaleY(1)
+                .setDuration(duration)
+                .setInterpolator(interpolator)
+                .start();
+    }
+
+    /**
+     * @param fraction interpolated progress from the start bounds (0) to the target (1)
+     */
+    void setFraction(float fraction) {
+        mFraction = fraction;
+        mView.setTranslationX(mStartTranslationX * (1 - fraction));
+        mView.setTranslationY(mStartTranslationY * (1 - fraction));
+        mView.setScaleX(mStartScaleX + (1 - mStartScaleX) * fraction);
+        mView.setScaleY(mStartScaleY + (1 - mStartScaleY) * fraction);
+    }
+
+    /**
+     * @return interpolated progress of the current slide, 1 when it has settled
+     */
+    float getFraction() {
+        if (mDuration <= 0) return mFraction;
+
+        final long elapsed = AnimationUtils.currentAnimationTimeMillis() - mStartTime;
+        if (elapsed >= mDuration) return 1f;
+        return mInterpolator.getInterpolation((float) elapsed / mDuration);
+    }
+
+    /**
+     * @param out receives the bounds the selector is drawn at on the current frame
+     */
+    void getCurrentBounds(Rect out) {
+        SelectorGeometry.interpolate(mFrom, mTo, getFraction(), mCurrent);
+        out.set(mCurrent[SelectorGeometry.LEFT], mCurrent[SelectorGeometry.TOP],
+                mCurrent[SelectorGeometry.RIGHT], mCurrent[SelectorGeometry.BOTTOM]);
+    }
+
+    /**
+     * Moves the layer with the content. A running animation keeps going
+     * relative to the new position.
+     */
+    void offset(int dx, int dy) {
+        if (!mShowing) return;
+
+        SelectorGeometry.offset(mFrom, dx, dy);
+        SelectorGeometry.offset(mTo, dx, dy);
+        mView.offsetLeftAndRight(dx);
+        mView.offsetTopAndBottom(dy);
+    }
+
+    /**
+     * Redraws the layer content after a state or style change, resizing
+     * the layer if the glow around the selector changed
+     */
+    void invalidate() {
+        if (mShowing && mDrawable.getGlowOutset() != mView.mOutset) {
+            layout(mTo[SelectorGeometry.LEFT], mTo[SelectorGeometry.TOP], mTo[SelectorGeometry.RIGHT], mTo[SelectorGeometry.BOTTOM]);
+        }
+        mView.invalidate();
+    }
+
+    void hide() {
+        if (!mShowing) return;
+
+        cancel();
+        mHost.getOverlay().remove(mView);
+        mShowing = false;
+    }
+
+    /**
+     * Stops a render thread slide, the properties are set again right after
+     */
+    private void cancel() {
+        if (mDuration <= 0) return;
+
+        mView.animate().cancel();
+        mDuration = 0;
+    }
+
+    private void attach() {
+        if (mShowing) return;
+
+        mHost.getOverlay().add(mView);
+        mShowing = true;
+    }
+
+    private void layout(Rect bounds) {
+        layout(bounds.left, bounds.top, bounds.right, bounds.bottom);
+    }
+
+    /**
+     * Lays the layer out around the selector bounds, leaving room for the glow
+     */
+    private void layout(int left, int top, int right, int bottom) {
+        final int outset = mDrawable.getGlowOutset();
+        mView.mOutset = outset;
+        mView.measure(
+                View.MeasureSpec.makeMeasureSpec(right - left + outset * 2, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(bottom - top + outset * 2, View.MeasureSpec.EXACTLY));
+        mView.layout(left - outset, top - outset, right + outset, bottom + outset);
+    }
+
+    private static void setRect(int[] out, Rect rect) {
+        SelectorGeometry.set(out, rect.left, rect.top, rect.right, rect.bottom);
+    }
+
+    /**
+     * Draws the selector drawable at its own origin, past the glow outset,
+     * whatever its bounds in the grid are
+     */
+    private static final class LayerView extends View {
+
+        private final Drawable mDrawable;
+        private int mOutset;
+
+        LayerView(Context context, Drawable drawable) {
+            super(context);
+            mDrawable = drawable;
+        }
+
+        @Override
+        protected void onDraw(Canvas canvas) {
+            final Rect bounds = mDrawable.getBounds();
+            canvas.translate(mOutset - bounds.left, mOutset - bounds.top);
+            mDrawable.draw(canvas);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.support.v4.util.LruCache;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Shape of the selector. An outline builds a {@link Path} for a given size, which
+ * is cached and reused for the stroke, cutout, shadow, fill and glow of that
+ * size. Outlines are only drawn when selector bitmaps or masks are rasterized,
+ * so a custom outline costs the same per frame as the default round rect.
+ *
+ * Subclass it for custom shapes, or use one of the built-in outlines. Equal
+ * outlines must return equal keys, because the key is part of the cache keys
+ * of the selector bitmaps.
+ */
+@SuppressWarnings("unused")
+public abstract class SelectorOutline {
+
+    private static final int CACHED_PATHS = 8;
+    private static final int SQUIRCLE_SEGMENTS = 16;
+
+    private final LruCache<Long, Path> mPaths = new LruCache<>(CACHED_PATHS);
+
+    /**
+     * @return key identifying the geometry of this outline
+     */
+    public abstract String getKey();
+
+    /**
+     * Adds the outline of a width x height area at the origin to the path.
+     * Called once per size.
+     */
+    protected abstract void buildPath(Path path, float width, float height);
+
+    /**
+     * Fills the outline within the given rect, building its path on first use
+     */
+    final void draw(Canvas canvas, RectF rect, Paint paint) {
+        final float w = rect.width();
+        final float h = rect.height();
+        if (w <= 0 || h <= 0) return;
+
+        final Long key = ((long) Float.floatToIntBits(w) << 32) | (Float.floatToIntBits(h) & 0xFFFFFFFFL);
+        Path path = mPaths.get(key);
+        if (path == null) {
+            path = new Path();
+            buildPath(path, w, h);
+            mPaths.put(key, path);
+        }
+
+        canvas.save();
+        canvas.translate(rect.left, rect.top);
+        canvas.drawPath(path, paint);
+        canvas.restore();
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        return this == o || o instanceof SelectorOutline && getKey().equals(((SelectorOutline) o).getKey());
+    }
+
+    @Override
+    public final int hashCode() {
+        return getKey().hashCode();
+    }
+
+    /**
+     * Rectangle with elliptic corners, the default shape
+     */
+    public static SelectorOutline roundRect(final float radiusX, final float radiusY) {
+        return new SelectorOutline() {
+            @Override
+            public String getKey() {
+                return "roundRect:" + radiusX + ':' + radiusY;
+            }
+
+            @Override
+            protected void buildPath(Path path, float width, float height) {
+                path.addRoundRect(new RectF(0, 0, width, height), radiusX, radiusY, Path.Direction.CW);
+            }
+        };
+    }
+
+    /**
+     * Rectangle with its own radius for every corner
+     */
+    public static SelectorOutline corners(final float topLeft, final float topRight, final float bottomRight, final float bottomLeft) {
+        return new SelectorOutline() {
+            @Override
+            public String getKey() {
+                return "corners:" + topLeft + ':' + topRight + ':' + bottomRight + ':' + bottomLeft;
+            }
+
+            @Override
+            protected void buildPath(Path path, float width, float height) {
+                final float[] radii = {topLeft, topLeft, topRight, topRight, bottomRight, bottomRight, bottomLeft, bottomLeft};
+                path.addRoundRect(new RectF(0, 0, width, height), radii, Path.Direction.CW);
+            }
+        };
+    }
+
+    /**
+     * Rectangle with superellipse corners, which blend into the edges more smoothly
+     * than circular ones
+     *
+     * @param radius corner radius, limited to half the shorter side
+     * @param exponent superellipse exponent, 2 gives circular corners, 4 to 5 a squircle
+     */
+    public static SelectorOutline squircle(final float radius, final float exponent) {
+        return new SelectorOutline() {
+            @Override
+            public String getKey() {
+                return "squircle:" + radius + ':' + exponent;
+            }
+
+            @Override
+            protected void buildPath(Path path, float width, float height) {
+                final float r = Math.min(radius, Math.min(width, height) / 2);
+                final double power = 2 / exponent;
+
+                // Corners clockwise from the top right, each sweeping 90 degrees
+                final float[] centers = {width - r, r, width - r, height - r, r, height - r, r, r};
+                for (int corner = 0; corner < 4; corner++) {
+                    final double start = Math.PI / 2 * (1 - corner);
+                    for (int i = 0; i <= SQUIRCLE_SEGMENTS; i++) {
+                        final double angle = start - Math.PI / 2 * i / SQUIRCLE_SEGMENTS;
+                        final float x = centers[corner * 2] + r * signedPow(Math.cos(angle), power);
+                        final float y = centers[corner * 2 + 1] - r * signedPow(Math.sin(angle), power);
+
+                        if (corner == 0 && i == 0) path.moveTo(x, y);
+                        else path.lineTo(x, y);
+                    }
+                }
+                path.close();
+            }
+        };
+    }
+
+    /**
+     * Circle centered in the cell, sized to its shorter side
+     */
+    public static SelectorOutline circle() {
+        return new SelectorOutline() {
+            @Override
+            public String getKey() {
+                return "circle";
+            }
+
+            @Override
+            protected void buildPath(Path path, float width, float height) {
+                path.addCircle(width / 2, height / 2, Math.min(width, height) / 2, Path.Direction.CW);
+            }
+        };
+    }
+
+    /**
+     * Ellipse filling the cell
+     */
+    public static SelectorOutline oval() {
+        return new SelectorOutline() {
+            @Override
+            public String getKey() {
+                return "oval";
+            }
+
+            @Override
+            protected void buildPath(Path path, float width, float height) {
+                path.addOval(new RectF(0, 0, width, height), Path.Direction.CW);
+            }
+        };
+    }
+
+    private static float signedPow(double value, double power) {
+        return (float) (Math.signum(value) * Math.pow(Math.abs(value), power));
+    }
+}
@@ -0,0 +1,308 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.graphics.Bitmap;
+import android.graphics.BlurMaskFilter;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Rasterizes selector styles into {@link SelectorRendering}s and caches them in
+ * {@link SelectorCache}, or packs them into a {@link SelectorAtlas} when the style asks for it.
+ */
+final class SelectorRenderer {
+
+    private static Paint sStrokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private static Paint sShadowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private static Paint sCutoutPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private static Paint sFillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    static {
+        sStrokePaint.setStyle(Paint.Style.FILL);
+
+        sShadowPaint.setStyle(Paint.Style.FILL);
+        sShadowPaint.setColor(Color.BLACK);
+        sShadowPaint.setAlpha((int) Math.ceil(0.5 * 255));
+
+        sCutoutPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_OUT));
+
+        sFillPaint.setStyle(Paint.Style.FILL);
+    }
+
+    private SelectorRenderer() {
+    }
+
+    /**
+     * Looks up the rendering for a style and size, rasterizing it on a miss
+     *
+     * @param style selector style
+     * @param mask true to render ALPHA_8 masks instead of ARGB variants
+     * @param shadow true to draw the inner shadow edge
+     * @param w width of the view
+     * @param h height of the view
+     * @return cached or freshly rendered selector
+     */
+    static SelectorRendering obtain(SelectorStyle style, boolean mask, boolean shadow, int w, int h) {
+        if (style.usesAtlas()) {
+            SelectorRendering rendering = obtainAtlased(style, mask, shadow, w, h);
+            if (rendering != null) return rendering;
+        }
+
+        String key = cacheKey(style, mask, shadow, w, h);
+
+        SelectorRendering rendering = SelectorCache.get(key);
+        if (rendering == null) {
+            Systrace.begin(Systrace.RENDER_SELECTOR);
+            try {
+                rendering = mask ? renderMasks(style, shadow, w, h) : renderVariants(style, shadow, w, h);
+            } finally {
+                Systrace.end();
+            }
+            SelectorCache.put(key, rendering);
+        }
+        return rendering;
+    }
+
+    static String cacheKey(SelectorStyle style, boolean mask, boolean shadow, int w, int h) {
+        return style.getAtlasKey(mask, shadow) + ':' + w + 'x' + h;
+    }
+
+    /**
+     * Looks up the rendering in the atlas of the style, packing new regions on a miss
+     *
+     * @return atlased rendering, or null if the size does not fit in an atlas
+     */
+    private static SelectorRendering obtainAtlased(SelectorStyle style, boolean mask, boolean shadow, int w, int h) {
+        final SelectorAtlas atlas = SelectorAtlas.forKey(style.getAtlasKey(mask, shadow),
+                mask ? Bitmap.Config.ALPHA_8 : Bitmap.Config.ARGB_8888);
+
+        synchronized (atlas) {
+            SelectorRendering rendering = atlas.get(w, h);
+            if (rendering != null) return rendering;
+
+            final int count = mask ? SelectorRendering.MASK_COUNT : SelectorDrawable.LEVEL_COUNT;
+            Rect[] sources = new Rect[count];
+
+            for (int i = 0; i < count; i++) {
+                if (mask && !needsMask(style, shadow, i)) continue;
+
+                sources[i] = atlas.allocate(w, h);
+                if (sources[i] == null) {
+                    for (Rect source : sources) {
+                        if (source != null) atlas.free(source);
+                    }
+                    return null;
+                }
+            }
+
+            Systrace.begin(Systrace.RENDER_SELECTOR);
+            try {
+                synchronized (SelectorRenderer.class) {
+                    Canvas canvas = new Canvas(atlas.getBitmap());
+                    for (int i = 0; i < count; i++) {
+                        if (sources[i] == null) continue;
+
+                        canvas.save();
+                        canvas.clipRect(sources[i]);
+                        canvas.translate(sources[i].left, sources[i].top);
+                        if (mask) drawMask(canvas, style, shadow, w, h, i);
+                        else drawVariant(canvas, style, shadow, w, h,
+                                i != SelectorDrawable.LEVEL_SELECTED, i == SelectorDrawable.LEVEL_CLICKED);
+                        canvas.restore();
+                    }
+                }
+            } finally {
+                Systrace.end();
+            }
+
+            rendering = SelectorRendering.fromAtlas(atlas, mask, sources, w, h);
+            atlas.put(w, h, rendering);
+            return rendering;
+        }
+    }
+
+    /**
+     * Generates one bitmap per selector state for the given size
+     *
+     * @return rendering holding bitmaps indexed by SelectorDrawable level
+     */
+    static synchronized SelectorRendering renderVariants(SelectorStyle style, boolean shadow, int w, int h) {
+        Bitmap[] variants = new Bitmap[SelectorDrawable.LEVEL_COUNT];
+        variants[SelectorDrawable.LEVEL_FOCUSED] = generateBitmap(style, shadow, w, h, true, false);
+        variants[SelectorDrawable.LEVEL_SELECTED] = generateBitmap(style, shadow, w, h, false, false);
+        variants[SelectorDrawable.LEVEL_CLICKED] = generateBitmap(style, shadow, w, h, true, true);
+        return SelectorRendering.fromVariants(variants, w, h);
+    }
+
+    /**
+     * Generates a bitmap according to the size and state of a view in the recycler view
+     *
+     * @param w width of the bitmap
+     * @param h height of the bitmap
+     * @param focused true if the view is focused
+     * @param clicked true if the view is clicked
+     * @return Bitmap
+     */
+    private static Bitmap generateBitmap(SelectorStyle style, boolean shadow, int w, int h, boolean focused, boolean clicked) {
+        Bitmap bitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+        drawVariant(new Canvas(bitmap), style, shadow, w, h, focused, clicked);
+        return bitmap;
+    }
+
+    /**
+     * Draws one state of the selector into a w x h area at the canvas origin
+     */
+    private static void drawVariant(Canvas canvas, SelectorStyle style, boolean shadow, int w, int h, boolean focused, boolean clicked) {
+        final float strokeWidth = style.getStrokeWidth();
+        final float marginLeft = style.getStrokeMarginLeft();
+        final float marginTop = style.getStrokeMarginTop();
+        final float marginRight = style.getStrokeMarginRight();
+        final float marginBottom = style.getStrokeMarginBottom();
+
+        RectF fillRect = new RectF(marginLeft, marginTop, w-marginRight, h-marginBottom);
+        RectF shadowRect = new RectF(strokeWidth +marginLeft, strokeWidth +marginTop, w- strokeWidth -marginRight, h- strokeWidth -marginBottom);
+        RectF cutoutRect = new RectF(strokeWidth +marginLeft+2, strokeWidth +marginTop+2, w- strokeWidth -marginRight-1, h- strokeWidth -marginBottom-1);
+
+        if (strokeWidth > 0.0f) {
+            sStrokePaint.setColor(clicked ? style.getStrokeColorClicked() : focused ? style.getStrokeColor() : style.getStrokeColorSelected());
+            paintCanvas(style, canvas, fillRect, sStrokePaint);
+
+            if (!style.isFilled()) {
+                if (shadow) paintCanvas(style, canvas, shadowRect, sShadowPaint);
+            } else {
+                cutoutRect = shadowRect;
+            }
+
+            paintCanvas(style, canvas, cutoutRect, sCutoutPaint);
+        }
+
+        if (style.isFilled()) {
+            sFillPaint.setColor(clicked ? style.getFillColorClicked() : focused ? style.getFillColor() : style.getFillColorSelected());
+            sFillPaint.setAlpha((int) Math.ceil((clicked ? style.getFillAlphaClicked() : focused ? style.getFillAlpha() : style.getFillAlphaSelected()) * 255));
+            paintCanvas(style, canvas, cutoutRect, sFillPaint);
+        }
+    }
+
+    /**
+     * Rasterizes the selector shape into ALPHA_8 masks. The stroke ring, the inner
+     * shadow edge and the fill each get their own mask so they can be tinted
+     * independently at draw time.
+     *
+     * @return rendering holding masks indexed by SelectorRendering mask index, null where not needed
+     */
+    static synchronized SelectorRendering renderMasks(SelectorStyle style, boolean shadow, int w, int h) {
+        Bitmap[] masks = new Bitmap[SelectorRendering.MASK_COUNT];
+
+        for (int i = 0; i < SelectorRendering.MASK_COUNT; i++) {
+            if (!needsMask(style, shadow, i)) continue;
+
+            masks[i] = Bitmap.createBitmap(w, h, Bitmap.Config.ALPHA_8);
+            drawMask(new Canvas(masks[i]), style, shadow, w, h, i);
+        }
+
+        return SelectorRendering.fromMasks(masks, w, h);
+    }
+
+    /**
+     * @return true if the style draws anything into the given mask
+     */
+    private static boolean needsMask(SelectorStyle style, boolean shadow, int mask) {
+        switch (mask) {
+            case SelectorRendering.MASK_STROKE:
+                return style.getStrokeWidth() > 0.0f;
+            case SelectorRendering.MASK_SHADOW:
+                return style.getStrokeWidth() > 0.0f && !style.isFilled() && shadow;
+            default:
+                return style.isFilled();
+        }
+    }
+
+    /**
+     * Draws one mask of the selector into a w x h area at the canvas origin
+     */
+    private static void drawMask(Canvas canvas, SelectorStyle style, boolean shadow, int w, int h, int mask) {
+        final float strokeWidth = style.getStrokeWidth();
+        final float marginLeft = style.getStrokeMarginLeft();
+        final float marginTop = style.getStrokeMarginTop();
+        final float marginRight = style.getStrokeMarginRight();
+        final float marginBottom = style.getStrokeMarginBottom();
+
+        RectF fillRect = new RectF(marginLeft, marginTop, w-marginRight, h-marginBottom);
+        RectF shadowRect = new RectF(strokeWidth +marginLeft, strokeWidth +marginTop, w- strokeWidth -marginRight, h- strokeWidth -marginBottom);
+        RectF cutoutRect = new RectF(strokeWidth +marginLeft+2, strokeWidth +marginTop+2, w- strokeWidth -marginRight-1, h- strokeWidth -marginBottom-1);
+
+        if (strokeWidth > 0.0f && style.isFilled()) cutoutRect = shadowRect;
+
+        sStrokePaint.setColor(Color.BLACK);
+
+        switch (mask) {
+            case SelectorRendering.MASK_STROKE:
+                paintCanvas(style, canvas, fillRect, sStrokePaint);
+                paintCanvas(style, canvas, cutoutRect, sCutoutPaint);
+                break;
+            case SelectorRendering.MASK_SHADOW:
+                paintCanvas(style, canvas, shadowRect, sStrokePaint);
+                paintCanvas(style, canvas, cutoutRect, sCutoutPaint);
+                break;
+            default:
+                paintCanvas(style, canvas, cutoutRect, sStrokePaint);
+                break;
+        }
+    }
+
+    /**
+     * Rasterizes the outer shape of the selector into an ALPHA_8 bitmap and blurs it.
+     * The bitmap is larger than the selector by the glow radius on every side, so the
+     * blur can fade out. Slow, meant to run off the UI thread.
+     *
+     * @return glow bitmap of (w + 2 * radius) x (h + 2 * radius)
+     */
+    static Bitmap renderGlow(SelectorStyle style, int w, int h) {
+        final int radius = (int) Math.ceil(style.getGlowRadius());
+
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(Color.BLACK);
+        paint.setMaskFilter(new BlurMaskFilter(radius, BlurMaskFilter.Blur.OUTER));
+
+        Bitmap bitmap = Bitmap.createBitmap(w + radius * 2, h + radius * 2, Bitmap.Config.ALPHA_8);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.translate(radius, radius);
+
+        RectF fillRect = new RectF(style.getStrokeMarginLeft(), style.getStrokeMarginTop(),
+                w - style.getStrokeMarginRight(), h - style.getStrokeMarginBottom());
+        paintCanvas(style, canvas, fillRect, paint);
+
+        return bitmap;
+    }
+
+    /**
+     * Helper method to paint the canvas used in generate bitmap
+     *
+     * @param canvas the canvas used to draw onto
+     * @param rectF size
+     * @param paint paint
+     */
+    private static void paintCanvas(SelectorStyle style, Canvas canvas, RectF rectF, Paint paint) {
+        style.getOutline().draw(canvas, rectF, paint);
+    }
+}
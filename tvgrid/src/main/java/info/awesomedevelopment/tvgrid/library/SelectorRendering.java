@@ -0,0 +1,176 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Rasterized selector for one style and size. Instances are immutable and shared
+ * through {@link SelectorCache} by every grid using the same style, while each grid
+ * draws them through its own {@link SelectorDrawable}.
+ */
+final class SelectorRendering {
+
+    static final int MASK_STROKE = 0;
+    static final int MASK_SHADOW = 1;
+    static final int MASK_FILL = 2;
+    static final int MASK_COUNT = 3;
+
+    private final Bitmap[] mVariants;
+    private final Bitmap[] mMasks;
+    private final int mWidth;
+    private final int mHeight;
+    private final int mByteCount;
+
+    private final SelectorAtlas mAtlas;
+    private final Rect[] mSources;
+    private volatile boolean mValid = true;
+    private int mLastUse;
+
+    private SelectorRendering(Bitmap[] variants, Bitmap[] masks, int w, int h) {
+        mVariants = variants;
+        mMasks = masks;
+        mWidth = w;
+        mHeight = h;
+        mAtlas = null;
+        mSources = null;
+
+        int bytes = 0;
+        for (Bitmap bitmap : masks != null ? masks : variants) {
+            if (bitmap != null) bytes += bitmap.getRowBytes() * bitmap.getHeight();
+        }
+        mByteCount = bytes;
+    }
+
+    private SelectorRendering(SelectorAtlas atlas, boolean mask, Rect[] sources, int w, int h) {
+        mVariants = mask ? null : new Bitmap[sources.length];
+        mMasks = mask ? new Bitmap[sources.length] : null;
+        mWidth = w;
+        mHeight = h;
+        mAtlas = atlas;
+        mSources = sources;
+        mByteCount = 0;
+    }
+
+    /**
+     * @param variants one ARGB bitmap per level, indexed by SelectorDrawable level
+     */
+    static SelectorRendering fromVariants(Bitmap[] variants, int w, int h) {
+        return new SelectorRendering(variants, null, w, h);
+    }
+
+    /**
+     * @param masks ALPHA_8 masks indexed by MASK_STROKE, MASK_SHADOW and MASK_FILL, null entries are skipped
+     */
+    static SelectorRendering fromMasks(Bitmap[] masks, int w, int h) {
+        return new SelectorRendering(null, masks, w, h);
+    }
+
+    /**
+     * @param glow ALPHA_8 blurred glow, larger than w x h by the glow radius on every side
+     */
+    static SelectorRendering fromGlow(Bitmap glow, int w, int h) {
+        return new SelectorRendering(null, new Bitmap[] {glow}, w, h);
+    }
+
+    /**
+     * @param atlas atlas holding the regions
+     * @param mask true if the regions are masks rather than variants
+     * @param sources region per level or mask index, null entries are skipped
+     */
+    static SelectorRendering fromAtlas(SelectorAtlas atlas, boolean mask, Rect[] sources, int w, int h) {
+        return new SelectorRendering(atlas, mask, sources, w, h);
+    }
+
+    /**
+     * @return true if this rendering is tinted at draw time
+     */
+    boolean isMask() {
+        return mMasks != null;
+    }
+
+    Bitmap getVariant(int level) {
+        return mAtlas != null ? getAtlasBitmap(level) : mVariants[level];
+    }
+
+    Bitmap getMask(int mask) {
+        return mAtlas != null ? getAtlasBitmap(mask) : mMasks[mask];
+    }
+
+    /**
+     * @return the glow bitmap of a rendering created with fromGlow
+     */
+    Bitmap getGlow() {
+        return mMasks[0];
+    }
+
+    /**
+     * @return region of the variant or mask inside the atlas, null to draw the whole bitmap
+     */
+    Rect getSource(int index) {
+        return mSources == null ? null : mSources[index];
+    }
+
+    /**
+     * @return number of regions of an atlased rendering, zero otherwise
+     */
+    int getSourceCount() {
+        return mSources == null ? 0 : mSources.length;
+    }
+
+    private Bitmap getAtlasBitmap(int index) {
+        return mValid && mSources[index] != null ? mAtlas.getBitmap() : null;
+    }
+
+    /**
+     * @return false once the atlas holding this rendering has dropped its regions
+     */
+    boolean isValid() {
+        return mValid;
+    }
+
+    void invalidate() {
+        mValid = false;
+    }
+
+    /**
+     * @return when the atlas last handed this rendering out, in atlas lookups
+     */
+    int getLastUse() {
+        return mLastUse;
+    }
+
+    void setLastUse(int use) {
+        mLastUse = use;
+    }
+
+    int getWidth() {
+        return mWidth;
+    }
+
+    int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * @return bytes owned by this rendering, zero when it lives in an atlas, which is counted on its own
+     */
+    int getByteCount() {
+        return mByteCount;
+    }
+}
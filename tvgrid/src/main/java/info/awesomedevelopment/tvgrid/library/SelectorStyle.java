@@ -0,0 +1,701 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.util.TypedValue;
+
+import java.lang.ref.WeakReference;
+import java.text.MessageFormat;
+import java.util.WeakHashMap;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Immutable description of how the selector looks. Create one with a {@link Builder}
+ * and apply it with {@link TVGridView#setSelectorStyle(SelectorStyle)}.
+ *
+ * Styles are interned, so equal styles built anywhere in the process are the same
+ * instance and share the same cached selector bitmaps.
+ */
+public final class SelectorStyle {
+
+    private static final WeakHashMap<SelectorStyle, WeakReference<SelectorStyle>> sInterned = new WeakHashMap<>();
+
+    @TVGridView.StrokePosition private final int mStrokePosition;
+    @TVGridView.SelectorShape private final int mSelectorShape;
+    @TVGridView.SelectorRenderMode private final int mRenderMode;
+    private final boolean mUseAtlas;
+
+    private final boolean mIsFilled;
+
+    private final int mFillColor;
+    private final int mFillColorSelected;
+    private final int mFillColorClicked;
+
+    private final float mFillAlpha;
+    private final float mFillAlphaSelected;
+    private final float mFillAlphaClicked;
+
+    private final float mStrokeWidth;
+
+    private final int mStrokeColor;
+    private final int mStrokeColorSelected;
+    private final int mStrokeColorClicked;
+
+    private final float mCornerRadiusX;
+    private final float mCornerRadiusY;
+
+    private final float mStrokeMarginLeft;
+    private final float mStrokeMarginTop;
+    private final float mStrokeMarginRight;
+    private final float mStrokeMarginBottom;
+
+    private final float mStrokeSpacingLeft;
+    private final float mStrokeSpacingTop;
+    private final float mStrokeSpacingRight;
+    private final float mStrokeSpacingBottom;
+
+    private final float mGlowRadius;
+    private final int mGlowColor;
+
+    private final SelectorOutline mCustomOutline;
+    private final SelectorOutline mOutline;
+
+    private final int[] mStateStrokeColors = new int[SelectorDrawable.LEVEL_COUNT];
+    private final int[] mStateFillColors = new int[SelectorDrawable.LEVEL_COUNT];
+
+    private final int mHashCode;
+    private String mKey;
+    private String mGeometryKey;
+    private final String[] mAtlasKeys = new String[4];
+
+    private SelectorStyle(Builder b) {
+        mStrokePosition = b.mStrokePosition;
+        mSelectorShape = b.mSelectorShape;
+        mRenderMode = b.mRenderMode;
+        mUseAtlas = b.mUseAtlas;
+        mIsFilled = b.mIsFilled;
+        mFillColor = b.mFillColor;
+        mFillColorSelected = b.mFillColorSelected;
+        mFillColorClicked = b.mFillColorClicked;
+        mFillAlpha = b.mFillAlpha;
+        mFillAlphaSelected = b.mFillAlphaSelected;
+        mFillAlphaClicked = b.mFillAlphaClicked;
+        mStrokeWidth = b.mStrokeWidth;
+        mStrokeColor = b.mStrokeColor;
+        mStrokeColorSelected = b.mStrokeColorSelected;
+        mStrokeColorClicked = b.mStrokeColorClicked;
+        mCornerRadiusX = b.mCornerRadiusX;
+        mCornerRadiusY = b.mCornerRadiusY;
+        mStrokeMarginLeft = b.mStrokeMarginLeft;
+        mStrokeMarginTop = b.mStrokeMarginTop;
+        mStrokeMarginRight = b.mStrokeMarginRight;
+        mStrokeMarginBottom = b.mStrokeMarginBottom;
+        mStrokeSpacingLeft = b.mStrokeSpacingLeft;
+        mStrokeSpacingTop = b.mStrokeSpacingTop;
+        mStrokeSpacingRight = b.mStrokeSpacingRight;
+        mStrokeSpacingBottom = b.mStrokeSpacingBottom;
+        mGlowRadius = b.mGlowRadius;
+        mGlowColor = b.mGlowColor;
+        mCustomOutline = b.mOutline;
+
+        if (mCustomOutline != null) {
+            mOutline = mCustomOutline;
+        } else if (mSelectorShape == TVGridView.CIRCLE) {
+            mOutline = SelectorOutline.circle();
+        } else {
+            mOutline = SelectorOutline.roundRect(mCornerRadiusX, mCornerRadiusY);
+        }
+
+        mStateStrokeColors[SelectorDrawable.LEVEL_FOCUSED] = mStrokeColor;
+        mStateStrokeColors[SelectorDrawable.LEVEL_SELECTED] = mStrokeColorSelected;
+        mStateStrokeColors[SelectorDrawable.LEVEL_CLICKED] = mStrokeColorClicked;
+
+        mStateFillColors[SelectorDrawable.LEVEL_FOCUSED] = withAlpha(mFillColor, mFillAlpha);
+        mStateFillColors[SelectorDrawable.LEVEL_SELECTED] = withAlpha(mFillColorSelected, mFillAlphaSelected);
+        mStateFillColors[SelectorDrawable.LEVEL_CLICKED] = withAlpha(mFillColorClicked, mFillAlphaClicked);
+
+        mHashCode = computeHashCode();
+    }
+
+    private static int withAlpha(int color, float alpha) {
+        return (color & 0x00FFFFFF) | ((int) Math.ceil(alpha * 255) << 24);
+    }
+
+    private static SelectorStyle intern(SelectorStyle style) {
+        synchronized (sInterned) {
+            WeakReference<SelectorStyle> ref = sInterned.get(style);
+            SelectorStyle interned = ref == null ? null : ref.get();
+            if (interned != null) return interned;
+
+            sInterned.put(style, new WeakReference<>(style));
+            return style;
+        }
+    }
+
+    /**
+     * @return a builder initialized with the values of this style
+     */
+    public Builder buildUpon() {
+        return new Builder(this);
+    }
+
+    @TVGridView.StrokePosition
+    public int getStrokePosition() {
+        return mStrokePosition;
+    }
+
+    @TVGridView.SelectorShape
+    public int getSelectorShape() {
+        return mSelectorShape;
+    }
+
+    /**
+     * @return the custom outline, or null if the shape comes from the selector shape and corner radius
+     */
+    public SelectorOutline getCustomOutline() {
+        return mCustomOutline;
+    }
+
+    /**
+     * @return the outline the selector is drawn with, custom or derived from the selector shape
+     */
+    SelectorOutline getOutline() {
+        return mOutline;
+    }
+
+    @TVGridView.SelectorRenderMode
+    public int getRenderMode() {
+        return mRenderMode;
+    }
+
+    /**
+     * @return true if selector variants are packed into a shared atlas bitmap
+     */
+    public boolean usesAtlas() {
+        return mUseAtlas;
+    }
+
+    public boolean isFilled() {
+        return mIsFilled;
+    }
+
+    public int getFillColor() {
+        return mFillColor;
+    }
+
+    public int getFillColorSelected() {
+        return mFillColorSelected;
+    }
+
+    public int getFillColorClicked() {
+        return mFillColorClicked;
+    }
+
+    public float getFillAlpha() {
+        return mFillAlpha;
+    }
+
+    public float getFillAlphaSelected() {
+        return mFillAlphaSelected;
+    }
+
+    public float getFillAlphaClicked() {
+        return mFillAlphaClicked;
+    }
+
+    public float getStrokeWidth() {
+        return mStrokeWidth;
+    }
+
+    public int getStrokeColor() {
+        return mStrokeColor;
+    }
+
+    public int getStrokeColorSelected() {
+        return mStrokeColorSelected;
+    }
+
+    public int getStrokeColorClicked() {
+        return mStrokeColorClicked;
+    }
+
+    public float getCornerRadiusX() {
+        return mCornerRadiusX;
+    }
+
+    public float getCornerRadiusY() {
+        return mCornerRadiusY;
+    }
+
+    public float getStrokeMarginLeft() {
+        return mStrokeMarginLeft;
+    }
+
+    public float getStrokeMarginTop() {
+        return mStrokeMarginTop;
+    }
+
+    public float getStrokeMarginRight() {
+        return mStrokeMarginRight;
+    }
+
+    public float getStrokeMarginBottom() {
+        return mStrokeMarginBottom;
+    }
+
+    public float getStrokeSpacingLeft() {
+        return mStrokeSpacingLeft;
+    }
+
+    public float getStrokeSpacingTop() {
+        return mStrokeSpacingTop;
+    }
+
+    public float getStrokeSpacingRight() {
+        return mStrokeSpacingRight;
+    }
+
+    public float getStrokeSpacingBottom() {
+        return mStrokeSpacingBottom;
+    }
+
+    public float getGlowRadius() {
+        return mGlowRadius;
+    }
+
+    public int getGlowColor() {
+        return mGlowColor;
+    }
+
+    /**
+     * @return true if a blurred glow is drawn around the selector instead of the inner shadow edge
+     */
+    public boolean hasGlow() {
+        return mGlowRadius > 0.0f;
+    }
+
+    /**
+     * @return stroke colors indexed by SelectorDrawable level, must not be modified
+     */
+    int[] getStateStrokeColors() {
+        return mStateStrokeColors;
+    }
+
+    /**
+     * @return fill colors with their alpha applied, indexed by SelectorDrawable level, must not be modified
+     */
+    int[] getStateFillColors() {
+        return mStateFillColors;
+    }
+
+    /**
+     * @return key covering everything that is baked into ARGB selector bitmaps
+     */
+    String getKey() {
+        if (mKey == null) {
+            mKey = MessageFormat.format(
+                    "{0}:{1}:{2}:{3}:{4}:{5}:{6}:{7}:{8}:{9}",
+                    getGeometryKey(),
+                    mStrokeColor,
+                    mStrokeColorSelected,
+                    mStrokeColorClicked,
+                    mFillColor,
+                    mFillColorSelected,
+                    mFillColorClicked,
+                    mFillAlpha,
+                    mFillAlphaSelected,
+                    mFillAlphaClicked
+            );
+        }
+        return mKey;
+    }
+
+    /**
+     * @return key of the atlas holding this style's ARGB variants or masks, built once per combination
+     */
+    String getAtlasKey(boolean mask, boolean shadow) {
+        final int index = (mask ? 2 : 0) + (shadow ? 1 : 0);
+        if (mAtlasKeys[index] == null) {
+            mAtlasKeys[index] = (mask ? "mask:" + getGeometryKey() : getKey()) + ':' + shadow;
+        }
+        return mAtlasKeys[index];
+    }
+
+    /**
+     * @return key covering what shapes the blurred glow, which is tinted at draw time
+     */
+    String getGlowKey() {
+        return getGeometryKey() + ':' + mGlowRadius;
+    }
+
+    /**
+     * @return key covering only what shapes the selector, used for ALPHA_8 masks
+     */
+    String getGeometryKey() {
+        if (mGeometryKey == null) {
+            mGeometryKey = MessageFormat.format(
+                    "{0}:{1}:{2}:{3}:{4}:{5}:{6}",
+                    mIsFilled,
+                    mOutline.getKey(),
+                    mStrokeWidth,
+                    mStrokeMarginLeft,
+                    mStrokeMarginTop,
+                    mStrokeMarginRight,
+                    mStrokeMarginBottom
+            );
+        }
+        return mGeometryKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SelectorStyle)) return false;
+
+        SelectorStyle s = (SelectorStyle) o;
+        return mHashCode == s.mHashCode
+                && mStrokePosition == s.mStrokePosition
+                && mSelectorShape == s.mSelectorShape
+                && mRenderMode == s.mRenderMode
+                && mUseAtlas == s.mUseAtlas
+                && mIsFilled == s.mIsFilled
+                && mFillColor == s.mFillColor
+                && mFillColorSelected == s.mFillColorSelected
+                && mFillColorClicked == s.mFillColorClicked
+                && Float.compare(mFillAlpha, s.mFillAlpha) == 0
+                && Float.compare(mFillAlphaSelected, s.mFillAlphaSelected) == 0
+                && Float.compare(mFillAlphaClicked, s.mFillAlphaClicked) == 0
+                && Float.compare(mStrokeWidth, s.mStrokeWidth) == 0
+                && mStrokeColor == s.mStrokeColor
+                && mStrokeColorSelected == s.mStrokeColorSelected
+                && mStrokeColorClicked == s.mStrokeColorClicked
+                && Float.compare(mCornerRadiusX, s.mCornerRadiusX) == 0
+                && Float.compare(mCornerRadiusY, s.mCornerRadiusY) == 0
+                && Float.compare(mStrokeMarginLeft, s.mStrokeMarginLeft) == 0
+                && Float.compare(mStrokeMarginTop, s.mStrokeMarginTop) == 0
+                && Float.compare(mStrokeMarginRight, s.mStrokeMarginRight) == 0
+                && Float.compare(mStrokeMarginBottom, s.mStrokeMarginBottom) == 0
+                && Float.compare(mStrokeSpacingLeft, s.mStrokeSpacingLeft) == 0
+                && Float.compare(mStrokeSpacingTop, s.mStrokeSpacingTop) == 0
+                && Float.compare(mStrokeSpacingRight, s.mStrokeSpacingRight) == 0
+                && Float.compare(mStrokeSpacingBottom, s.mStrokeSpacingBottom) == 0
+                && Float.compare(mGlowRadius, s.mGlowRadius) == 0
+                && mGlowColor == s.mGlowColor
+                && (mCustomOutline == null ? s.mCustomOutline == null : mCustomOutline.equals(s.mCustomOutline));
+    }
+
+    @Override
+    public int hashCode() {
+        return mHashCode;
+    }
+
+    private int computeHashCode() {
+        int result = mStrokePosition;
+        result = 31 * result + mSelectorShape;
+        result = 31 * result + mRenderMode;
+        result = 31 * result + (mUseAtlas ? 1 : 0);
+        result = 31 * result + (mIsFilled ? 1 : 0);
+        result = 31 * result + mFillColor;
+        result = 31 * result + mFillColorSelected;
+        result = 31 * result + mFillColorClicked;
+        result = 31 * result + Float.floatToIntBits(mFillAlpha);
+        result = 31 * result + Float.floatToIntBits(mFillAlphaSelected);
+        result = 31 * result + Float.floatToIntBits(mFillAlphaClicked);
+        result = 31 * result + Float.floatToIntBits(mStrokeWidth);
+        result = 31 * result + mStrokeColor;
+        result = 31 * result + mStrokeColorSelected;
+        result = 31 * result + mStrokeColorClicked;
+        result = 31 * result + Float.floatToIntBits(mCornerRadiusX);
+        result = 31 * result + Float.floatToIntBits(mCornerRadiusY);
+        result = 31 * result + Float.floatToIntBits(mStrokeMarginLeft);
+        result = 31 * result + Float.floatToIntBits(mStrokeMarginTop);
+        result = 31 * result + Float.floatToIntBits(mStrokeMarginRight);
+        result = 31 * result + Float.floatToIntBits(mStrokeMarginBottom);
+        result = 31 * result + Float.floatToIntBits(mStrokeSpacingLeft);
+        result = 31 * result + Float.floatToIntBits(mStrokeSpacingTop);
+        result = 31 * result + Float.floatToIntBits(mStrokeSpacingRight);
+        result = 31 * result + Float.floatToIntBits(mStrokeSpacingBottom);
+        result = 31 * result + Float.floatToIntBits(mGlowRadius);
+        result = 31 * result + mGlowColor;
+        result = 31 * result + (mCustomOutline == null ? 0 : mCustomOutline.hashCode());
+        return result;
+    }
+
+    public static final class Builder {
+
+        @TVGridView.StrokePosition private int mStrokePosition = TVGridView.OUTSIDE;
+        @TVGridView.SelectorShape private int mSelectorShape = TVGridView.RECTANGLE;
+        @TVGridView.SelectorRenderMode private int mRenderMode = TVGridView.RENDER_BITMAP;
+        private boolean mUseAtlas;
+
+        private boolean mIsFilled;
+
+        private int mFillColor;
+        private int mFillColorSelected;
+        private int mFillColorClicked;
+
+        private float mFillAlpha;
+        private float mFillAlphaSelected;
+        private float mFillAlphaClicked;
+
+        private float mStrokeWidth;
+
+        private int mStrokeColor;
+        private int mStrokeColorSelected;
+        private int mStrokeColorClicked;
+
+        private float mCornerRadiusX;
+        private float mCornerRadiusY;
+
+        private float mStrokeMarginLeft;
+        private float mStrokeMarginTop;
+        private float mStrokeMarginRight;
+        private float mStrokeMarginBottom;
+
+        private float mStrokeSpacingLeft;
+        private float mStrokeSpacingTop;
+        private float mStrokeSpacingRight;
+        private float mStrokeSpacingBottom;
+
+        private float mGlowRadius;
+        private int mGlowColor;
+
+        private SelectorOutline mOutline;
+
+        /**
+         * Creates a builder with every value zeroed, an outside stroke and a rectangle shape
+         */
+        public Builder() {
+        }
+
+        /**
+         * Creates a builder initialized with the library's resource defaults
+         *
+         * @param context context used to resolve the defaults
+         */
+        @SuppressWarnings("deprecation")
+        public Builder(Context context) {
+            Resources res = context.getResources();
+
+            TypedValue fillAlpha = new TypedValue();
+            res.getValue(R.dimen.tvg_defFillAlpha, fillAlpha, true);
+
+            TypedValue fillAlphaSelected = new TypedValue();
+            res.getValue(R.dimen.tvg_defFillAlphaSelected, fillAlphaSelected, true);
+
+            mIsFilled = res.getInteger(R.integer.tvg_defIsFilled) == 1;
+            mFillAlpha = fillAlpha.getFloat();
+            mFillAlphaSelected = fillAlphaSelected.getFloat();
+            mFillColor = res.getColor(R.color.tvg_defFillColor);
+            mFillColorSelected = res.getColor(R.color.tvg_defFillColorSelected);
+            mCornerRadiusX = res.getDimension(R.dimen.tvg_defCornerRadius);
+            mCornerRadiusY = mCornerRadiusX;
+            mStrokeWidth = res.getDimension(R.dimen.tvg_defStrokeWidth);
+            mStrokeColor = res.getColor(R.color.tvg_defStrokeColor);
+            mStrokeColorSelected = res.getColor(R.color.tvg_defStrokeColorSelected);
+            mStrokeMarginLeft = res.getDimension(R.dimen.tvg_defStrokeMarginLeft);
+            mStrokeMarginTop = res.getDimension(R.dimen.tvg_defStrokeMarginTop);
+            mStrokeMarginRight = res.getDimension(R.dimen.tvg_defStrokeMarginRight);
+            mStrokeMarginBottom = res.getDimension(R.dimen.tvg_defStrokeMarginBottom);
+            mStrokeSpacingLeft = res.getDimension(R.dimen.tvg_defStrokeSpacingLeft);
+            mStrokeSpacingTop = res.getDimension(R.dimen.tvg_defStrokeSpacingTop);
+            mStrokeSpacingRight = res.getDimension(R.dimen.tvg_defStrokeSpacingRight);
+            mStrokeSpacingBottom = res.getDimension(R.dimen.tvg_defStrokeSpacingBottom);
+            mGlowColor = res.getColor(R.color.tvg_defGlowColor);
+        }
+
+        /**
+         * Creates a builder initialized with the values of the given style
+         *
+         * @param style style to copy
+         */
+        public Builder(SelectorStyle style) {
+            mStrokePosition = style.mStrokePosition;
+            mSelectorShape = style.mSelectorShape;
+            mRenderMode = style.mRenderMode;
+            mUseAtlas = style.mUseAtlas;
+            mIsFilled = style.mIsFilled;
+            mFillColor = style.mFillColor;
+            mFillColorSelected = style.mFillColorSelected;
+            mFillColorClicked = style.mFillColorClicked;
+            mFillAlpha = style.mFillAlpha;
+            mFillAlphaSelected = style.mFillAlphaSelected;
+            mFillAlphaClicked = style.mFillAlphaClicked;
+            mStrokeWidth = style.mStrokeWidth;
+            mStrokeColor = style.mStrokeColor;
+            mStrokeColorSelected = style.mStrokeColorSelected;
+            mStrokeColorClicked = style.mStrokeColorClicked;
+            mCornerRadiusX = style.mCornerRadiusX;
+            mCornerRadiusY = style.mCornerRadiusY;
+            mStrokeMarginLeft = style.mStrokeMarginLeft;
+            mStrokeMarginTop = style.mStrokeMarginTop;
+            mStrokeMarginRight = style.mStrokeMarginRight;
+            mStrokeMarginBottom = style.mStrokeMarginBottom;
+            mStrokeSpacingLeft = style.mStrokeSpacingLeft;
+            mStrokeSpacingTop = style.mStrokeSpacingTop;
+            mStrokeSpacingRight = style.mStrokeSpacingRight;
+            mStrokeSpacingBottom = style.mStrokeSpacingBottom;
+            mGlowRadius = style.mGlowRadius;
+            mGlowColor = style.mGlowColor;
+            mOutline = style.mCustomOutline;
+        }
+
+        public Builder setStrokePosition(@TVGridView.StrokePosition int strokePosition) {
+            mStrokePosition = strokePosition;
+            return this;
+        }
+
+        public Builder setSelectorShape(@TVGridView.SelectorShape int shape) {
+            mSelectorShape = shape;
+            return this;
+        }
+
+        public Builder setRenderMode(@TVGridView.SelectorRenderMode int renderMode) {
+            mRenderMode = renderMode;
+            return this;
+        }
+
+        /**
+         * @param useAtlas true to draw every variant from one shared atlas bitmap
+         */
+        public Builder setUseAtlas(boolean useAtlas) {
+            mUseAtlas = useAtlas;
+            return this;
+        }
+
+        public Builder setFilled(boolean filled) {
+            mIsFilled = filled;
+            return this;
+        }
+
+        public Builder setFillColor(int color) {
+            mFillColor = color;
+            return this;
+        }
+
+        public Builder setFillColorSelected(int color) {
+            mFillColorSelected = color;
+            return this;
+        }
+
+        public Builder setFillColorClicked(int color) {
+            mFillColorClicked = color;
+            return this;
+        }
+
+        public Builder setFillAlpha(float alpha) {
+            mFillAlpha = alpha;
+            return this;
+        }
+
+        public Builder setFillAlphaSelected(float alpha) {
+            mFillAlphaSelected = alpha;
+            return this;
+        }
+
+        public Builder setFillAlphaClicked(float alpha) {
+            mFillAlphaClicked = alpha;
+            return this;
+        }
+
+        public Builder setStrokeWidth(float width) {
+            mStrokeWidth = width;
+            return this;
+        }
+
+        public Builder setStrokeColor(int color) {
+            mStrokeColor = color;
+            return this;
+        }
+
+        public Builder setStrokeColorSelected(int color) {
+            mStrokeColorSelected = color;
+            return this;
+        }
+
+        public Builder setStrokeColorClicked(int color) {
+            mStrokeColorClicked = color;
+            return this;
+        }
+
+        public Builder setCornerRadius(float radius) {
+            return setCornerRadius(radius, radius);
+        }
+
+        public Builder setCornerRadius(float x, float y) {
+            mCornerRadiusX = x;
+            mCornerRadiusY = y;
+            return this;
+        }
+
+        /**
+         * @see TVGridView#setStrokeMargin(float, float, float, float)
+         */
+        public Builder setStrokeMargin(float left, float top, float right, float bottom) {
+            mStrokeMarginLeft = left;
+            mStrokeMarginTop = top;
+            mStrokeMarginRight = right;
+            mStrokeMarginBottom = bottom;
+            return this;
+        }
+
+        public Builder setStrokeMargin(float all) {
+            return setStrokeMargin(all, all, all, all);
+        }
+
+        /**
+         * @see TVGridView#setStrokeSpacing(float, float, float, float)
+         */
+        public Builder setStrokeSpacing(float left, float top, float right, float bottom) {
+            mStrokeSpacingLeft = left;
+            mStrokeSpacingTop = top;
+            mStrokeSpacingRight = right;
+            mStrokeSpacingBottom = bottom;
+            return this;
+        }
+
+        public Builder setStrokeSpacing(float all) {
+            return setStrokeSpacing(all, all, all, all);
+        }
+
+        /**
+         * @see TVGridView#setGlow(float, int)
+         */
+        public Builder setGlow(float radius, int color) {
+            mGlowRadius = radius;
+            mGlowColor = color;
+            return this;
+        }
+
+        /**
+         * @param outline custom selector shape, replacing the selector shape and corner
+         *                radius, or null to use those again
+         */
+        public Builder setOutline(SelectorOutline outline) {
+            mOutline = outline;
+            return this;
+        }
+
+        /**
+         * @return the interned style for the current values
+         */
+        public SelectorStyle build() {
+            return intern(new SelectorStyle(this));
+        }
+    }
+}
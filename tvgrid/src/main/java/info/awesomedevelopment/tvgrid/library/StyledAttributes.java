@@ -0,0 +1,169 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Resolved TVGridView attributes. Results are cached per theme and per raw
+ * attribute values, so a dozen grids inflated from the same layout or style
+ * resolve their attributes and resource defaults only once.
+ */
+final class StyledAttributes {
+
+    private static final String KEY_DEFAULTS = "";
+
+    private static final WeakHashMap<Resources.Theme, HashMap<String, StyledAttributes>> sCache = new WeakHashMap<>();
+
+    @TVGridView.SelectorPosition final int selectorPosition;
+    final boolean animateSelectorChanges;
+    @TVGridView.SelectorAnimator final int selectorAnimator;
+    final float focusZoom;
+    final int focusCacheRadius;
+    final SelectorStyle style;
+
+    private StyledAttributes(@TVGridView.SelectorPosition int selectorPosition, boolean animateSelectorChanges,
+                             @TVGridView.SelectorAnimator int selectorAnimator, float focusZoom, int focusCacheRadius,
+                             SelectorStyle style) {
+        this.selectorPosition = selectorPosition;
+        this.animateSelectorChanges = animateSelectorChanges;
+        this.selectorAnimator = selectorAnimator;
+        this.focusZoom = focusZoom;
+        this.focusCacheRadius = focusCacheRadius;
+        this.style = style;
+    }
+
+    /**
+     * @param context context whose theme resolves the attributes
+     * @param attrs attributes from XML, or null for the library defaults
+     * @return resolved attributes, shared with earlier grids using the same values
+     */
+    static StyledAttributes resolve(Context context, AttributeSet attrs) {
+        final Resources.Theme theme = context.getTheme();
+        final String key = attrs == null ? KEY_DEFAULTS : keyFor(attrs);
+
+        synchronized (sCache) {
+            HashMap<String, StyledAttributes> resolved = sCache.get(theme);
+            if (resolved == null) {
+                resolved = new HashMap<>();
+                sCache.put(theme, resolved);
+            }
+
+            StyledAttributes result = resolved.get(key);
+            if (result != null) return result;
+
+            StyledAttributes defaults = resolved.get(KEY_DEFAULTS);
+            if (defaults == null) {
+                defaults = new StyledAttributes(
+                        TVGridView.OVER,
+                        context.getResources().getInteger(R.integer.tvg_defAnimateSelectorChanges) == 1,
+                        TVGridView.ANIMATOR_UI_THREAD,
+                        1f,
+                        0,
+                        new SelectorStyle.Builder(context).build());
+                resolved.put(KEY_DEFAULTS, defaults);
+            }
+            if (attrs == null) return defaults;
+
+            result = obtain(context, attrs, defaults);
+            resolved.put(key, result);
+            return result;
+        }
+    }
+
+    /**
+     * Builds a key from the style reference and the raw values of the TVGridView
+     * attributes. Raw values are resource references or literals, so equal keys
+     * resolve to equal results under the same theme.
+     */
+    private static String keyFor(AttributeSet attrs) {
+        StringBuilder key = new StringBuilder();
+        key.append(attrs.getStyleAttribute());
+
+        for (int i = 0, count = attrs.getAttributeCount(); i < count; i++) {
+            final int name = attrs.getAttributeNameResource(i);
+            if (!isGridAttribute(name)) continue;
+
+            key.append(';').append(name).append('=').append(attrs.getAttributeValue(i));
+        }
+        return key.toString();
+    }
+
+    private static boolean isGridAttribute(int name) {
+        for (int attr : R.styleable.TVGridView) {
+            if (attr == name) return true;
+        }
+        return false;
+    }
+
+    private static StyledAttributes obtain(Context context, AttributeSet attrs, StyledAttributes defaults) {
+        final SelectorStyle style = defaults.style;
+
+        TypedArray a = context.getTheme().obtainStyledAttributes(
+                attrs,
+                R.styleable.TVGridView,
+                0,
+                0
+        );
+
+        try {
+            //noinspection ResourceType
+            return new StyledAttributes(
+                    a.getInteger(R.styleable.TVGridView_tvg_selectorPosition, TVGridView.OVER),
+                    a.getBoolean(R.styleable.TVGridView_tvg_animateSelectorChanges, defaults.animateSelectorChanges),
+                    a.getInteger(R.styleable.TVGridView_tvg_selectorAnimator, defaults.selectorAnimator),
+                    a.getFloat(R.styleable.TVGridView_tvg_focusZoom, defaults.focusZoom),
+                    a.getInteger(R.styleable.TVGridView_tvg_focusCacheRadius, defaults.focusCacheRadius),
+                    style.buildUpon()
+                            .setStrokePosition(a.getInteger(R.styleable.TVGridView_tvg_strokePosition, TVGridView.OUTSIDE))
+                            .setSelectorShape(a.getInteger(R.styleable.TVGridView_tvg_selectorShape, TVGridView.RECTANGLE))
+                            .setRenderMode(a.getInteger(R.styleable.TVGridView_tvg_renderMode, TVGridView.RENDER_BITMAP))
+                            .setUseAtlas(a.getBoolean(R.styleable.TVGridView_tvg_useAtlas, style.usesAtlas()))
+                            .setFilled(a.getBoolean(R.styleable.TVGridView_tvg_filled, style.isFilled()))
+                            .setFillAlpha(a.getFloat(R.styleable.TVGridView_tvg_fillAlpha, style.getFillAlpha()))
+                            .setFillAlphaSelected(a.getFloat(R.styleable.TVGridView_tvg_fillAlphaSelected, style.getFillAlphaSelected()))
+                            .setFillColor(a.getColor(R.styleable.TVGridView_tvg_fillColor, style.getFillColor()))
+                            .setFillColorSelected(a.getColor(R.styleable.TVGridView_tvg_fillColorSelected, style.getFillColorSelected()))
+                            .setCornerRadius(a.getDimension(R.styleable.TVGridView_tvg_cornerRadius, style.getCornerRadiusX()))
+                            .setStrokeWidth(a.getDimension(R.styleable.TVGridView_tvg_strokeWidth, style.getStrokeWidth()))
+                            .setStrokeColor(a.getColor(R.styleable.TVGridView_tvg_strokeColor, style.getStrokeColor()))
+                            .setStrokeColorSelected(a.getColor(R.styleable.TVGridView_tvg_strokeColorSelected, style.getStrokeColorSelected()))
+                            .setStrokeMargin(
+                                    a.getDimension(R.styleable.TVGridView_tvg_marginLeft, style.getStrokeMarginLeft()),
+                                    a.getDimension(R.styleable.TVGridView_tvg_marginTop, style.getStrokeMarginTop()),
+                                    a.getDimension(R.styleable.TVGridView_tvg_marginRight, style.getStrokeMarginRight()),
+                                    a.getDimension(R.styleable.TVGridView_tvg_marginBottom, style.getStrokeMarginBottom()))
+                            .setStrokeSpacing(
+                                    a.getDimension(R.styleable.TVGridView_tvg_spacingLeft, style.getStrokeSpacingLeft()),
+                                    a.getDimension(R.styleable.TVGridView_tvg_spacingTop, style.getStrokeSpacingTop()),
+                                    a.getDimension(R.styleable.TVGridView_tvg_spacingRight, style.getStrokeSpacingRight()),
+                                    a.getDimension(R.styleable.TVGridView_tvg_spacingBottom, style.getStrokeSpacingBottom()))
+                            .setGlow(
+                                    a.getDimension(R.styleable.TVGridView_tvg_glowRadius, style.getGlowRadius()),
+                                    a.getColor(R.styleable.TVGridView_tvg_glowColor, style.getGlowColor()))
+                            .build());
+        } finally {
+            a.recycle();
+        }
+    }
+}
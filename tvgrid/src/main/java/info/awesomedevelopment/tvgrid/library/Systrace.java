@@ -0,0 +1,66 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Trace;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Systrace sections, no-ops below API 18. Sections have to begin and end on
+ * the same thread within one call, so events that span frames, like
+ * animations, are marked with {@link #mark(String)} instead.
+ */
+final class Systrace {
+
+    private static final boolean ENABLED = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+    static final String ADD_STROKED_VIEW = "TVGrid:addStrokedView";
+    static final String RENDER_SELECTOR = "TVGrid:renderSelector";
+    static final String ANIMATION_START = "TVGrid:selectorAnimationStart";
+    static final String ANIMATION_END = "TVGrid:selectorAnimationEnd";
+
+    private Systrace() {
+    }
+
+    static void begin(String name) {
+        if (ENABLED) beginSection(name);
+    }
+
+    static void end() {
+        if (ENABLED) endSection();
+    }
+
+    /**
+     * Emits an empty section, marking a point in time
+     */
+    static void mark(String name) {
+        if (!ENABLED) return;
+        beginSection(name);
+        endSection();
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static void beginSection(String name) {
+        Trace.beginSection(name);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static void endSection() {
+        Trace.endSection();
+    }
+}
@@ -0,0 +1,101 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Adapter base for {@link TVGridView}. Focus handling and cell sizing are set up
+ * once per holder instead of once per bind: every item view shares one focus
+ * listener that routes focus to the grid it is attached to, and a fixed cell
+ * size is written into the existing layout params. Binding therefore allocates
+ * nothing on the library side.
+ *
+ * @param <VH> view holder type
+ */
+@SuppressWarnings("unused")
+public abstract class TVGridAdapter<VH extends TVGridViewHolder> extends RecyclerView.Adapter<VH> {
+
+    private int mCellWidth = -1;
+    private int mCellHeight = -1;
+
+    private final View.OnFocusChangeListener mFocusListener = new View.OnFocusChangeListener() {
+        @Override
+        public void onFocusChange(View view, boolean hasFocus) {
+            final ViewParent parent = view.getParent();
+            if (!(parent instanceof TVGridView)) return;
+
+            final TVGridView grid = (TVGridView) parent;
+            final TVGridViewHolder holder = (TVGridViewHolder) grid.getChildViewHolder(view);
+
+            // Views on their way out keep focus for a moment, the selector should not follow them
+            if (hasFocus && holder.getAdapterPosition() == RecyclerView.NO_POSITION) return;
+
+            grid.selectView(view, hasFocus);
+            holder.onFocusChanged(hasFocus);
+        }
+    };
+
+    /**
+     * Creates a holder, like {@link #onCreateViewHolder(ViewGroup, int)}
+     */
+    public abstract VH onCreateGridViewHolder(ViewGroup parent, int viewType);
+
+    @Override
+    public final VH onCreateViewHolder(ViewGroup parent, int viewType) {
+        final VH holder = onCreateGridViewHolder(parent, viewType);
+        holder.itemView.setFocusable(true);
+        holder.itemView.setOnFocusChangeListener(mFocusListener);
+        return holder;
+    }
+
+    /**
+     * Gives every cell the same size, applied when the cell is attached
+     *
+     * @param width width of a cell in pixels, or -1 to keep the item layout's width
+     * @param height height of a cell in pixels, or -1 to keep the item layout's height
+     */
+    public void setCellSize(int width, int height) {
+        if (mCellWidth == width && mCellHeight == height) return;
+
+        mCellWidth = width;
+        mCellHeight = height;
+        notifyDataSetChanged();
+    }
+
+    public int getCellWidth() {
+        return mCellWidth;
+    }
+
+    public int getCellHeight() {
+        return mCellHeight;
+    }
+
+    @Override
+    public void onViewAttachedToWindow(VH holder) {
+        super.onViewAttachedToWindow(holder);
+
+        // Attached before it is measured, so updating the params in place is enough
+        final ViewGroup.LayoutParams params = holder.itemView.getLayoutParams();
+        if (params == null) return;
+        if (mCellWidth >= 0) params.width = mCellWidth;
+        if (mCellHeight >= 0) params.height = mCellHeight;
+    }
+}
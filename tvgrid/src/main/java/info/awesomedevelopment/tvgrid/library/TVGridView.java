@@ -1,34 +1,32 @@
 package info.awesomedevelopment.tvgrid.library;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.animation.AnimatorSet;
 import android.animation.ValueAnimator;
-import android.app.ActivityManager;
+import android.annotation.TargetApi;
 import android.content.Context;
-import android.content.res.TypedArray;
-import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffXfermode;
 import android.graphics.Rect;
-import android.graphics.RectF;
-import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
-import android.os.Handler;
+import android.os.Build;
 import android.support.annotation.IntDef;
 import android.support.annotation.NonNull;
-import android.support.v4.util.LruCache;
+import android.support.v4.view.ViewCompat;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
 import android.util.AttributeSet;
-import android.util.TypedValue;
+import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.Interpolator;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.text.MessageFormat;
+import java.util.ArrayList;
 
 /*
     Copyright 2015 Sam Mathias Weggersen
@@ -49,6 +47,14 @@ import java.text.MessageFormat;
 public class TVGridView extends RecyclerView {
 
     private static final int ANIMATION_DURATION = 140;
+    private static final int DESELECT_DELAY = 50;
+    private static final int CLICK_DURATION = 100;
+    private static final int DEFAULT_VIEW_CACHE_SIZE = 2;
+
+    private static final int SELECTOR_IDLE = 0;
+    private static final int SELECTOR_FOCUSED = 1;
+    private static final int SELECTOR_SELECTED = 2;
+    private static final int SELECTOR_CLICKED = 3;
 
     @Retention(RetentionPolicy.SOURCE)
     @IntDef({INSIDE, CENTER, OUTSIDE})
@@ -69,95 +75,386 @@ public class TVGridView extends RecyclerView {
     public static final int RECTANGLE = 0;
     public static final int CIRCLE = 1;
 
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({RENDER_BITMAP, RENDER_MASK})
+    public @interface SelectorRenderMode {}
+    public static final int RENDER_BITMAP = 0;
+    public static final int RENDER_MASK = 1;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({ANIMATOR_UI_THREAD, ANIMATOR_RENDER_THREAD})
+    public @interface SelectorAnimator {}
+    public static final int ANIMATOR_UI_THREAD = 0;
+    public static final int ANIMATOR_RENDER_THREAD = 1;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({ALIGN_START, ALIGN_CENTER, ALIGN_END})
+    public @interface JumpAlignment {}
+    public static final int ALIGN_START = 0;
+    public static final int ALIGN_CENTER = 1;
+    public static final int ALIGN_END = 2;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({JUMP_SNAP, JUMP_FADE})
+    public @interface JumpTransition {}
+    public static final int JUMP_SNAP = 0;
+    public static final int JUMP_FADE = 1;
+
+    private static final int JUMP_NONE = -1;
+
     private ValueAnimator mYSize;
     private ValueAnimator mXSize;
     private ValueAnimator mYLocation;
     private ValueAnimator mXLocation;
+    private ValueAnimator mZoomAnimator;
+    private ValueAnimator mLayerAnimator;
 
-    private LruCache<String, BitmapDrawable> mCache;
+    /**
+     * Drives the selector through focused -> selected -> clicked -> restored.
+     * One instance is reused for every transition and is posted as a single
+     * animation frame callback, so no Handler or Runnable is allocated per event.
+     * The target is always the most recently focused or clicked view.
+     *
+     * Every transition checks the current state: a blur while clicked waits for
+     * the click to show, a blur of anything but the target is ignored, and a
+     * pending restore or deselect is dropped if the state moved on meanwhile.
+     */
+    private class SelectorStateMachine implements Runnable {
 
-    private static Paint sStrokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-    private static Paint sShadowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-    private static Paint sCutoutPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-    private static Paint sFillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        private View mView;
+        private int mState = SELECTOR_IDLE;
+        private int mPending = SELECTOR_IDLE;
 
-    static {
-        sStrokePaint.setStyle(Paint.Style.FILL);
+        void focus(View view) {
+            cancel();
+            mView = view;
+            mState = SELECTOR_FOCUSED;
+        }
 
-        sShadowPaint.setStyle(Paint.Style.FILL);
-        sShadowPaint.setColor(Color.BLACK);
-        sShadowPaint.setAlpha((int) Math.ceil(0.5 * 255));
+        void blur(View view) {
+            if (view != mView) return;
 
-        sCutoutPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_OUT));
+            switch (mState) {
+                case SELECTOR_FOCUSED:
+                    schedule(SELECTOR_SELECTED, DESELECT_DELAY);
+                    break;
+                case SELECTOR_CLICKED:
+                    schedule(SELECTOR_SELECTED, CLICK_DURATION);
+                    break;
+            }
+        }
 
-        sFillPaint.setStyle(Paint.Style.FILL);
-    }
+        /**
+         * @param rebound true if the selector offsets changed, so the bounds must be computed again
+         */
+        void click(View view, boolean restore, boolean rebound) {
+            cancel();
+            if (!rebound && mState != SELECTOR_IDLE && view == mView && mStrokeCell != null) {
+                updateSelectorState(true, true);
+            } else {
+                hardUpdateSelector(view, true, true);
+            }
+            mView = view;
+            mState = SELECTOR_CLICKED;
+            if (restore) schedule(SELECTOR_FOCUSED, CLICK_DURATION);
+        }
+
+        void cancel() {
+            if (mPending == SELECTOR_IDLE) return;
+            removeCallbacks(this);
+            mPending = SELECTOR_IDLE;
+        }
 
-    private class DeselectRunnable implements Runnable {
+        View getView() {
+            return mView;
+        }
 
-        private View view;
+        void reset() {
+            cancel();
+            mView = null;
+            mState = SELECTOR_IDLE;
+        }
 
-        public DeselectRunnable(View view) {
-            this.view = view;
+        private void schedule(int state, long delay) {
+            removeCallbacks(this);
+            mPending = state;
+            ViewCompat.postOnAnimationDelayed(TVGridView.this, this, delay);
         }
 
         @Override
         public void run() {
-            hardUpdateSelector(view, hasFocus(), false);
+            final int pending = mPending;
+            mPending = SELECTOR_IDLE;
+            if (mView == null) return;
+
+            switch (pending) {
+                case SELECTOR_SELECTED:
+                    if (mState != SELECTOR_FOCUSED && mState != SELECTOR_CLICKED) return;
+
+                    final boolean focused = hasFocus();
+                    if (!focused) {
+                        zoomView(null);
+                        startZoom();
+                    }
+                    updateSelectorState(focused, false);
+                    mState = focused ? SELECTOR_FOCUSED : SELECTOR_SELECTED;
+                    break;
+                case SELECTOR_FOCUSED:
+                    if (mState != SELECTOR_CLICKED) return;
+
+                    updateSelectorState(true, false);
+                    mState = SELECTOR_FOCUSED;
+                    break;
+            }
         }
 
     }
 
-    private final AnimatorSet mSelectorAnimationSet = new AnimatorSet();
-    private final Handler mSelectorDeselectHandler = new Handler();
-    private DeselectRunnable mSelectorDeselectRunnable;
+    /**
+     * Selector mutations recorded during a frame. Focus changes and clicks only note
+     * what happened; the final state is resolved once in the next animation frame
+     * callback, so several events in one frame cost one bounds computation and at
+     * most one animator restart. Scrolls are applied right away, see applyScroll.
+     */
+    private class PendingSelectorUpdates implements Runnable {
+
+        private View mFocusView;
+        private View mClickView;
+        private boolean mClickRestore;
+        private boolean mClickRebound;
+        private boolean mPosted;
+
+        void focus(View view) {
+            mFocusView = view;
+            mClickView = null;
+            post();
+        }
 
-    private Drawable mStrokeCell;
+        void click(View view, boolean restore, boolean rebound) {
+            mClickView = view;
+            mClickRestore = restore;
+            mClickRebound |= rebound;
+            post();
+        }
+
+        void cancel() {
+            if (mPosted) removeCallbacks(this);
+            clear();
+        }
+
+        private void clear() {
+            mFocusView = null;
+            mClickView = null;
+            mClickRebound = false;
+            mPosted = false;
+        }
+
+        private void post() {
+            if (mPosted) return;
+            mPosted = true;
+            ViewCompat.postOnAnimation(TVGridView.this, this);
+        }
+
+        @Override
+        public void run() {
+            final View focusView = mFocusView;
+            final View clickView = mClickView;
+            final boolean clickRestore = mClickRestore;
+            final boolean clickRebound = mClickRebound;
+            clear();
+
+            if (focusView != null) moveSelector(focusView);
+            if (clickView != null) mSelectorState.click(clickView, clickRestore, clickRebound);
+        }
+    }
+
+    private final PendingSelectorUpdates mPendingUpdates = new PendingSelectorUpdates();
+
+    private AnimatorSet mSelectorAnimationSet;
+    private Interpolator mSelectorInterpolator;
+    @SelectorAnimator private int mSelectorAnimator;
+    private SelectorLayer mSelectorLayer;
+    private final Rect mSelectorLayerFrom = new Rect();
+    private final Rect mSelectorAnimationFrom = new Rect();
+
+    private float mFocusZoom = 1f;
+    private View mZoomedView;
+    private View mUnzoomedView;
+    private boolean mRenderThreadZoom;
+    private float mZoomStart = 1f;
+    private float mUnzoomStart = 1f;
+    private int mZoomedIndex = -1;
+
+    private int mFocusCacheRadius;
+    private int mViewCacheSize = DEFAULT_VIEW_CACHE_SIZE;
+
+    private NavigationTrace mTrace;
+    private SelectorLatency mLatency;
+
+    private final AnimatorListenerAdapter mSelectorAnimationListener = new AnimatorListenerAdapter() {
+        private boolean mCanceled;
+
+        @Override
+        public void onAnimationStart(Animator animation) {
+            mCanceled = false;
+            Systrace.mark(Systrace.ANIMATION_START);
+        }
+
+        @Override
+        public void onAnimationCancel(Animator animation) {
+            mCanceled = true;
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            Systrace.mark(Systrace.ANIMATION_END);
+            if (mCanceled) return;
+
+            if (mLatency != null) mLatency.onSelectorSettled();
+            // The style changed while the selector was moving, apply it where it stopped
+            if (mResolvedGeneration != mStyleGeneration) refreshSelector();
+        }
+    };
+
+    private final ValueAnimator.AnimatorUpdateListener mZoomUpdateListener = new ValueAnimator.AnimatorUpdateListener() {
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            applyZoom((float) animation.getAnimatedValue());
+        }
+    };
+
+    private final AnimatorListenerAdapter mZoomListener = new AnimatorListenerAdapter() {
+        private boolean mCanceled;
+
+        @Override
+        public void onAnimationStart(Animator animation) {
+            mCanceled = false;
+        }
+
+        @Override
+        public void onAnimationCancel(Animator animation) {
+            mCanceled = true;
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            // A cancel is followed by a restart from the current scales, or by finishZoom
+            if (!mCanceled) finishZoom();
+        }
+    };
+
+    private final AnimatorListenerAdapter mLayerListener = new AnimatorListenerAdapter() {
+        private boolean mCanceled;
+
+        @Override
+        public void onAnimationStart(Animator animation) {
+            mCanceled = false;
+            Systrace.mark(Systrace.ANIMATION_START);
+        }
+
+        @Override
+        public void onAnimationCancel(Animator animation) {
+            mCanceled = true;
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            Systrace.mark(Systrace.ANIMATION_END);
+            if (mCanceled) return;
+
+            finishZoom();
+            if (mLatency != null) mLatency.onSelectorSettled();
+        }
+    };
+
+    /**
+     * Stands in for the end listener of a render thread slide, which may not have
+     * one. Posted for the duration of the slide.
+     */
+    private final Runnable mRenderThreadSettled = new Runnable() {
+        @Override
+        public void run() {
+            Systrace.mark(Systrace.ANIMATION_END);
+            finishZoom();
+            if (mLatency != null) mLatency.onSelectorSettled();
+        }
+    };
+
+    private int mJumpPosition = NO_POSITION;
+    @JumpTransition private int mJumpTransition;
+    private int mPendingJumpTransition = JUMP_NONE;
+    private ValueAnimator mFadeAnimator;
+    private final SelectorStateMachine mSelectorState = new SelectorStateMachine();
+
+    private DeviceProfile mDeviceProfile;
+    private DeviceProfile.FrameMonitor mFrameMonitor;
+    @DeviceProfile.Quality private int mRequestedQuality = DeviceProfile.QUALITY_AUTO;
+    @DeviceProfile.Quality private int mQualityCeiling;
+
+    private final DeviceProfile.FrameMonitor.Listener mFrameListener = new DeviceProfile.FrameMonitor.Listener() {
+        @Override
+        public void onSustainedJank() {
+            if (mDeviceProfile.getQuality() > DeviceProfile.QUALITY_LOW) {
+                applyDeviceProfile(mDeviceProfile.getQuality() - 1);
+            }
+        }
+
+        @Override
+        public void onSustainedRecovery() {
+            if (mDeviceProfile.getQuality() < mQualityCeiling) {
+                applyDeviceProfile(mDeviceProfile.getQuality() + 1);
+            }
+        }
+    };
+
+    private SelectorDrawable mStrokeCell;
     private Rect mStrokeCellPrevBounds;
     private Rect mStrokeCellCurrentBounds;
 
-    private int mScrollY = 0;
+    private int mScrollOffsetX = 0;
+    private int mScrollOffsetY = 0;
     private boolean mHardScrollChange = false;
     private boolean mEdgeChange = false;
 
-    private int mOffsetX = -1;
-    private int mOffsetY = -1;
+    private int mOffsetX = SelectorGeometry.NO_OFFSET;
+    private int mOffsetY = SelectorGeometry.NO_OFFSET;
     private boolean mOffsetOnPrev = false;
 
-    @StrokePosition private int mStrokePosition;
     @SelectorPosition private int mSelectorPosition;
-    @SelectorShape private int mSelectorShape = RECTANGLE;
 
     private boolean mAnimateSelectorChanges;
 
-    private float mCornerRadiusX;
-    private float mCornerRadiusY;
-
-    private boolean mIsFilled;
-
-    private int mFillColor;
-    private int mFillColorSelected;
-    private int mFillColorClicked;
+    private SelectorStyle mStyle;
+    private int mStyleGeneration;
+    private int mResolvedGeneration = -1;
+    private SelectorDrawable mSelectorDrawable;
 
-    private float mFillAlpha;
-    private float mFillAlphaSelected;
-    private float mFillAlphaClicked;
+    private final ArrayList<HighlightLayer> mHighlightLayers = new ArrayList<>();
 
-    private float mStrokeWidth;
-
-    private int mStrokeColor;
-    private int mStrokeColorSelected;
-    private int mStrokeColorClicked;
+    private final AdapterDataObserver mHighlightObserver = new AdapterDataObserver() {
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            for (int i = 0, count = mHighlightLayers.size(); i < count; i++) {
+                mHighlightLayers.get(i).onItemRangeInserted(positionStart, itemCount);
+            }
+        }
 
-    private float mStrokeMarginLeft;
-    private float mStrokeMarginTop;
-    private float mStrokeMarginRight;
-    private float mStrokeMarginBottom;
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            for (int i = 0, count = mHighlightLayers.size(); i < count; i++) {
+                mHighlightLayers.get(i).onItemRangeRemoved(positionStart, itemCount);
+            }
+        }
 
-    private float mStrokeSpacingLeft;
-    private float mStrokeSpacingTop;
-    private float mStrokeSpacingRight;
-    private float mStrokeSpacingBottom;
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            for (int i = 0, count = mHighlightLayers.size(); i < count; i++) {
+                mHighlightLayers.get(i).onItemRangeMoved(fromPosition, toPosition, itemCount);
+            }
+        }
+    };
+    private final Rect mHighlightBounds = new Rect();
+    private final int[] mGeometryBounds = new int[4];
 
     public TVGridView(Context context) {
         super(context);
@@ -177,94 +474,18 @@ public class TVGridView extends RecyclerView {
         init(attrs);
     }
 
-    @SuppressWarnings("deprecation")
+    /**
+     * Only resolves attributes here. Animators, the device profile and the
+     * selector drawable are created on first focus, see {@link #ensureSelector()}.
+     */
     private void init(AttributeSet attrs) {
-        ActivityManager am = (ActivityManager) getContext().getSystemService(Context.ACTIVITY_SERVICE);
-        mCache = new LruCache<>(am.getMemoryClass() * 1024);
-
-        mYSize = new ValueAnimator();
-        mXSize = new ValueAnimator();
-        mYLocation = new ValueAnimator();
-        mXLocation = new ValueAnimator();
-
-        mXSize.addUpdateListener(xSizeListener);
-        mYSize.addUpdateListener(ySizeListener);
-        mYLocation.addUpdateListener(yLocationListener);
-        mXLocation.addUpdateListener(xLocationListener);
-
-        mSelectorAnimationSet.playTogether(mXLocation, mYLocation, mXSize, mYSize);
-        mSelectorAnimationSet.setInterpolator(new AccelerateDecelerateInterpolator());
-        mSelectorAnimationSet.setDuration(ANIMATION_DURATION);
-
-        TypedValue fillAlpha = new TypedValue();
-        getResources().getValue(R.dimen.tvg_defFillAlpha, fillAlpha, true);
-
-        TypedValue fillAlphaSelected = new TypedValue();
-        getResources().getValue(R.dimen.tvg_defFillAlphaSelected, fillAlphaSelected, true);
-
-        if (attrs != null) {
-            TypedArray a = getContext().getTheme().obtainStyledAttributes(
-                    attrs,
-                    R.styleable.TVGridView,
-                    0,
-                    0
-            );
-
-            try {
-                //noinspection ResourceType
-                mStrokePosition = a.getInteger(R.styleable.TVGridView_tvg_strokePosition, OUTSIDE);
-                //noinspection ResourceType
-                mSelectorPosition = a.getInteger(R.styleable.TVGridView_tvg_selectorPosition, OVER);
-                //noinspection ResourceType
-                mSelectorShape = a.getInteger(R.styleable.TVGridView_tvg_selectorShape, RECTANGLE);
-
-                mAnimateSelectorChanges = a.getBoolean(R.styleable.TVGridView_tvg_animateSelectorChanges, getResources().getInteger(R.integer.tvg_defAnimateSelectorChanges) == 1);
-                mIsFilled = a.getBoolean(R.styleable.TVGridView_tvg_filled, getResources().getInteger(R.integer.tvg_defIsFilled) == 1);
-                mFillAlpha = a.getFloat(R.styleable.TVGridView_tvg_fillAlpha, fillAlpha.getFloat());
-                mFillAlphaSelected = a.getFloat(R.styleable.TVGridView_tvg_fillAlphaSelected, fillAlphaSelected.getFloat());
-                mFillColor = a.getColor(R.styleable.TVGridView_tvg_fillColor, getResources().getColor(R.color.tvg_defFillColor));
-                mFillColorSelected = a.getColor(R.styleable.TVGridView_tvg_fillColorSelected, getResources().getColor(R.color.tvg_defFillColorSelected));
-                mCornerRadiusX = a.getDimension(R.styleable.TVGridView_tvg_cornerRadius, getResources().getDimension(R.dimen.tvg_defCornerRadius));
-                mCornerRadiusY = a.getDimension(R.styleable.TVGridView_tvg_cornerRadius, getResources().getDimension(R.dimen.tvg_defCornerRadius));
-                mStrokeWidth = a.getDimension(R.styleable.TVGridView_tvg_strokeWidth, getResources().getDimension(R.dimen.tvg_defStrokeWidth));
-                mStrokeColor = a.getColor(R.styleable.TVGridView_tvg_strokeColor, getResources().getColor(R.color.tvg_defStrokeColor));
-                mStrokeColorSelected = a.getColor(R.styleable.TVGridView_tvg_strokeColorSelected, getResources().getColor(R.color.tvg_defStrokeColorSelected));
-                mStrokeMarginLeft = a.getDimension(R.styleable.TVGridView_tvg_marginLeft, getResources().getDimension(R.dimen.tvg_defStrokeMarginLeft));
-                mStrokeMarginTop = a.getDimension(R.styleable.TVGridView_tvg_marginTop, getResources().getDimension(R.dimen.tvg_defStrokeMarginTop));
-                mStrokeMarginRight = a.getDimension(R.styleable.TVGridView_tvg_marginRight, getResources().getDimension(R.dimen.tvg_defStrokeMarginRight));
-                mStrokeMarginBottom = a.getDimension(R.styleable.TVGridView_tvg_marginBottom, getResources().getDimension(R.dimen.tvg_defStrokeMarginBottom));
-                mStrokeSpacingLeft = a.getDimension(R.styleable.TVGridView_tvg_spacingLeft, getResources().getDimension(R.dimen.tvg_defStrokeSpacingLeft));
-                mStrokeSpacingTop = a.getDimension(R.styleable.TVGridView_tvg_spacingTop, getResources().getDimension(R.dimen.tvg_defStrokeSpacingTop));
-                mStrokeSpacingRight = a.getDimension(R.styleable.TVGridView_tvg_spacingRight, getResources().getDimension(R.dimen.tvg_defStrokeSpacingRight));
-                mStrokeSpacingBottom = a.getDimension(R.styleable.TVGridView_tvg_spacingBottom, getResources().getDimension(R.dimen.tvg_defStrokeSpacingBottom));
-            } finally {
-                a.recycle();
-            }
-        } else {
-            mStrokePosition = OUTSIDE;
-            mSelectorPosition = OVER;
-            mSelectorShape = RECTANGLE;
-
-            mAnimateSelectorChanges = getResources().getInteger(R.integer.tvg_defAnimateSelectorChanges) == 1;
-            mIsFilled = getResources().getInteger(R.integer.tvg_defIsFilled) == 1;
-            mFillAlpha = fillAlpha.getFloat();
-            mFillAlphaSelected = fillAlphaSelected.getFloat();
-            mFillColor = getResources().getColor(R.color.tvg_defFillColor);
-            mFillColorSelected = getResources().getColor(R.color.tvg_defFillColorSelected);
-            mCornerRadiusX = getResources().getDimension(R.dimen.tvg_defCornerRadius);
-            mCornerRadiusY = getResources().getDimension(R.dimen.tvg_defCornerRadius);
-            mStrokeWidth = getResources().getDimension(R.dimen.tvg_defStrokeWidth);
-            mStrokeColor = getResources().getColor(R.color.tvg_defStrokeColor);
-            mStrokeColorSelected = getResources().getColor(R.color.tvg_defStrokeColorSelected);
-            mStrokeMarginLeft = getResources().getDimension(R.dimen.tvg_defStrokeMarginLeft);
-            mStrokeMarginTop = getResources().getDimension(R.dimen.tvg_defStrokeMarginTop);
-            mStrokeMarginRight = getResources().getDimension(R.dimen.tvg_defStrokeMarginRight);
-            mStrokeMarginBottom = getResources().getDimension(R.dimen.tvg_defStrokeMarginBottom);
-            mStrokeSpacingLeft = getResources().getDimension(R.dimen.tvg_defStrokeSpacingLeft);
-            mStrokeSpacingTop = getResources().getDimension(R.dimen.tvg_defStrokeSpacingTop);
-            mStrokeSpacingRight = getResources().getDimension(R.dimen.tvg_defStrokeSpacingRight);
-            mStrokeSpacingBottom = getResources().getDimension(R.dimen.tvg_defStrokeSpacingBottom);
-        }
+        StyledAttributes resolved = StyledAttributes.resolve(getContext(), attrs);
+        mSelectorPosition = resolved.selectorPosition;
+        mAnimateSelectorChanges = resolved.animateSelectorChanges;
+        mSelectorAnimator = resolved.selectorAnimator;
+        setFocusZoom(resolved.focusZoom);
+        mFocusCacheRadius = resolved.focusCacheRadius;
+        mStyle = resolved.style;
 
         addOnScrollListener(new OnScrollListener() {
             @Override
@@ -279,23 +500,33 @@ public class TVGridView extends RecyclerView {
             @Override
             public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
                 super.onScrolled(recyclerView, dx, dy);
-                mScrollY = mScrollY + dy;
+                mScrollOffsetX += dx;
+                mScrollOffsetY += dy;
+                if (mTrace != null) mTrace.recordScroll(dx, dy);
 
                 if (mStrokeCellCurrentBounds == null || mStrokeCell == null) return;
 
-                if (useAnimations()) {
-                    mSelectorAnimationSet.cancel();
-
-                    mStrokeCellCurrentBounds.offsetTo(mStrokeCellCurrentBounds.left - dx, mStrokeCellCurrentBounds.top - dy);
+                if (useAnimations() || mHardScrollChange || mEdgeChange) {
+                    applyScroll(dx, dy);
+                }
+            }
+        });
 
-                    performSelectorAnimation();
-                } else if (mHardScrollChange || mEdgeChange) {
-                    mStrokeCellCurrentBounds.offsetTo(mStrokeCellCurrentBounds.left - dx, mStrokeCellCurrentBounds.top - dy);
-                    setPrevBounds();
+        addOnChildAttachStateChangeListener(new OnChildAttachStateChangeListener() {
+            @Override
+            public void onChildViewAttachedToWindow(View view) {
+            }
 
-                    mStrokeCell.setBounds(mStrokeCellPrevBounds);
-                    invalidate();
-                }
+            @Override
+            public void onChildViewDetachedFromWindow(View view) {
+                if (view != mZoomedView && view != mUnzoomedView && ViewCompat.getScaleX(view) == 1f) return;
+
+                // Recycled cells must not come back zoomed
+                if (view == mZoomedView || view == mUnzoomedView) syncRenderThreadZoom();
+                if (view == mZoomedView) mZoomedView = null;
+                if (view == mUnzoomedView) mUnzoomedView = null;
+                setCellScale(view, 1f);
+                ViewCompat.setLayerType(view, ViewCompat.LAYER_TYPE_NONE, null);
             }
         });
 
@@ -308,241 +539,897 @@ public class TVGridView extends RecyclerView {
         });
     }
 
+    /**
+     * @return vertical scroll offset, same as {@link #getScrollOffsetY()}
+     */
     @SuppressWarnings("unused")
     public int getScroll() {
-        return mScrollY;
+        return mScrollOffsetY;
+    }
+
+    /**
+     * @return horizontal distance scrolled since the grid was created
+     */
+    @SuppressWarnings("unused")
+    public int getScrollOffsetX() {
+        return mScrollOffsetX;
+    }
+
+    /**
+     * @return vertical distance scrolled since the grid was created
+     */
+    @SuppressWarnings("unused")
+    public int getScrollOffsetY() {
+        return mScrollOffsetY;
+    }
+
+    @SuppressWarnings("unused")
+    public void scrollByX(int x, boolean edgeChange) {
+        scrollByXY(x, 0, edgeChange);
     }
 
     @SuppressWarnings("unused")
     public void scrollByY(int y, boolean edgeChange) {
+        scrollByXY(0, y, edgeChange);
+    }
+
+    /**
+     * Scrolls the grid while the selector follows the content incrementally,
+     * instead of being snapped like after other scrolls
+     *
+     * @param x horizontal distance
+     * @param y vertical distance
+     * @param edgeChange true if focus moved across the edge of the grid and the
+     *                   selector should slide with every scrolled pixel
+     */
+    @SuppressWarnings("unused")
+    public void scrollByXY(int x, int y, boolean edgeChange) {
         mEdgeChange = edgeChange;
         mHardScrollChange = false;
 
-        if (useAnimations()) {
-            super.smoothScrollBy(0, y);
-        } else {
-            super.scrollBy(0, y);
+        if (useAnimations()) {
+            super.smoothScrollBy(x, y);
+        } else {
+            final int startX = mScrollOffsetX;
+            final int startY = mScrollOffsetY;
+            super.scrollBy(x, y);
+
+            // The grid may stop short at its ends, so move by what was actually scrolled
+            if (!edgeChange) applySyncBounds(mScrollOffsetX - startX, mScrollOffsetY - startY);
+        }
+    }
+
+    /**
+     * Moves the selector with the content in the same frame the content scrolled.
+     * A running slide is shifted in place instead of being restarted, so it keeps
+     * its progress and a pending focus change still restarts it only once.
+     */
+    private void applyScroll(int dx, int dy) {
+        if (mStrokeCellCurrentBounds == null || mStrokeCell == null) return;
+
+        if (isSelectorLayerShowing()) {
+            mStrokeCellCurrentBounds.offset(-dx, -dy);
+            mSelectorLayer.offset(-dx, -dy);
+        } else if (isSelectorAnimating()) {
+            mStrokeCellCurrentBounds.offset(-dx, -dy);
+            mSelectorAnimationFrom.offset(-dx, -dy);
+            setSelectorAnimationValues(mSelectorAnimationFrom, mStrokeCellCurrentBounds);
+
+            mStrokeCellPrevBounds.offset(-dx, -dy);
+            mStrokeCell.setBounds(mStrokeCellPrevBounds);
+            invalidate();
+        } else {
+            mStrokeCellCurrentBounds.offsetTo(mStrokeCellCurrentBounds.left - dx, mStrokeCellCurrentBounds.top - dy);
+            setPrevBounds();
+
+            mStrokeCell.setBounds(mStrokeCellPrevBounds);
+            invalidate();
+        }
+    }
+
+    /**
+     * Snaps the selector to its target bounds after a scroll without animation
+     *
+     * @param dx horizontal distance scrolled
+     * @param dy vertical distance scrolled
+     */
+    private void applySyncBounds(int dx, int dy) {
+        if (mStrokeCellCurrentBounds == null || mStrokeCell == null) return;
+
+        cancelSelectorAnimation();
+        finishZoom();
+        mStrokeCellCurrentBounds.offset(-dx, -dy);
+        if (isSelectorLayerShowing()) snapSelectorLayer(mStrokeCellCurrentBounds);
+
+        setPrevBounds();
+
+        mStrokeCell.setBounds(mStrokeCellPrevBounds);
+        invalidate();
+    }
+
+    /**
+     * Jumps straight to a position, for channel up/down, page keys or accelerated
+     * long presses. Only the destination window is laid out and bound, and the
+     * selector snaps to the new cell instead of sliding there, so a long jump
+     * costs the same as a short one.
+     *
+     * @param position adapter position to focus
+     * @param alignment where to place the cell, one of ALIGN_START, ALIGN_CENTER or ALIGN_END
+     */
+    @SuppressWarnings("unused")
+    public void jumpToPosition(int position, @JumpAlignment int alignment) {
+        jumpToPosition(position, alignment, JUMP_SNAP);
+    }
+
+    /**
+     * @param position adapter position to focus
+     * @param alignment where to place the cell, one of ALIGN_START, ALIGN_CENTER or ALIGN_END
+     * @param transition JUMP_SNAP to move the selector at once, JUMP_FADE to fade it in on the new cell
+     * @see #jumpToPosition(int, int)
+     */
+    @SuppressWarnings("unused")
+    public void jumpToPosition(int position, @JumpAlignment int alignment, @JumpTransition int transition) {
+        if (getAdapter() == null || position < 0 || position >= getAdapter().getItemCount()) return;
+
+        mJumpPosition = position;
+        mJumpTransition = transition;
+        stopScroll();
+
+        LayoutManager layoutManager = getLayoutManager();
+        if (layoutManager instanceof LinearLayoutManager) {
+            ((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(position, jumpOffset(alignment));
+        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+            ((StaggeredGridLayoutManager) layoutManager).scrollToPositionWithOffset(position, jumpOffset(alignment));
+        } else if (layoutManager != null) {
+            layoutManager.scrollToPosition(position);
+        }
+    }
+
+    /**
+     * Jumps to the first cell of a section, for alphabetical or genre jumps. The
+     * adapter has to implement {@link SectionedAdapter}, the key lookup is a hash
+     * lookup in its {@link SectionIndex}.
+     *
+     * @param key section key, like a letter or a genre
+     * @param alignment where to place the cell, one of ALIGN_START, ALIGN_CENTER or ALIGN_END
+     * @param transition JUMP_SNAP to move the selector at once, JUMP_FADE to fade it in on the new cell
+     * @return true if the section exists and is not empty
+     */
+    @SuppressWarnings("unused")
+    public boolean jumpToSection(Object key, @JumpAlignment int alignment, @JumpTransition int transition) {
+        if (!(getAdapter() instanceof SectionedAdapter)) return false;
+
+        final int position = ((SectionedAdapter) getAdapter()).getSectionIndex().getPositionForKey(key);
+        if (position == NO_POSITION) return false;
+
+        jumpToPosition(position, alignment, transition);
+        return true;
+    }
+
+    /**
+     * @see #jumpToSection(Object, int, int)
+     */
+    @SuppressWarnings("unused")
+    public boolean jumpToSection(Object key, @JumpAlignment int alignment) {
+        return jumpToSection(key, alignment, JUMP_SNAP);
+    }
+
+    /**
+     * Computes the offset of the target cell from the start edge. The target is not
+     * laid out yet, so its size is taken from a visible cell.
+     */
+    private int jumpOffset(@JumpAlignment int alignment) {
+        if (alignment == ALIGN_START || getChildCount() == 0) return 0;
+
+        final View child = getFocusedChild() != null ? getFocusedChild() : getChildAt(0);
+        final boolean vertical = getLayoutManager().canScrollVertically();
+        final int space = vertical
+                ? getHeight() - getPaddingTop() - getPaddingBottom()
+                : getWidth() - getPaddingLeft() - getPaddingRight();
+        final int size = vertical ? child.getHeight() : child.getWidth();
+
+        return alignment == ALIGN_CENTER ? (space - size) / 2 : space - size;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        super.onLayout(changed, l, t, r, b);
+
+        // The span count can change with the layout, like on rotation
+        if (mFocusCacheRadius > 0) updateViewCacheSize();
+        if (mJumpPosition != NO_POSITION) completeJump();
+    }
+
+    /**
+     * Focuses the jump target once it is laid out
+     */
+    private void completeJump() {
+        ViewHolder holder = findViewHolderForAdapterPosition(mJumpPosition);
+        mJumpPosition = NO_POSITION;
+        if (holder == null) return;
+
+        mPendingJumpTransition = mJumpTransition;
+        // Gaining focus highlights the view through the adapter's focus listener
+        final View view = holder.itemView;
+        if (view.isFocused() || !view.requestFocus()) highlightViewBase(view, true);
+    }
+
+    /**
+     * Fades the selector in where it is
+     */
+    private void fadeInSelector() {
+        if (mFadeAnimator == null) {
+            mFadeAnimator = ValueAnimator.ofInt(0, 255);
+            mFadeAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+                @Override
+                public void onAnimationUpdate(ValueAnimator animation) {
+                    mSelectorDrawable.setAlpha((int) animation.getAnimatedValue());
+                    invalidateStrokeCell();
+                }
+            });
+        }
+        mFadeAnimator.cancel();
+        mFadeAnimator.setDuration(mDeviceProfile.getAnimationDuration(ANIMATION_DURATION));
+        mFadeAnimator.setInterpolator(mSelectorInterpolator);
+        mFadeAnimator.start();
+    }
+
+    @Override
+    public void smoothScrollToPosition(int position) {
+        mHardScrollChange = true;
+        super.smoothScrollToPosition(position);
+    }
+
+    @Override
+    public void scrollToPosition(int position) {
+        mHardScrollChange = true;
+        super.scrollToPosition(position);
+    }
+
+    @Override
+    public void scrollTo(int x, int y) {
+        mHardScrollChange = true;
+        super.scrollTo(x, y);
+    }
+
+    @Override
+    public void smoothScrollBy(int dx, int dy) {
+        mHardScrollChange = true;
+        super.smoothScrollBy(dx, dy);
+    }
+
+    @Override
+    public void scrollBy(int x, int y) {
+        mHardScrollChange = true;
+        super.scrollBy(x, y);
+    }
+
+    /**
+     * Applies every selector setting at once. The visible selector is re-rendered
+     * at most once, and renderings of equal styles are shared between grids.
+     *
+     * @param style style built with {@link SelectorStyle.Builder}
+     */
+    @SuppressWarnings("unused")
+    public void setSelectorStyle(@NonNull SelectorStyle style) {
+        if (style == mStyle) return;
+
+        mStyle = style;
+        invalidateSelector();
+    }
+
+    @SuppressWarnings("unused")
+    public SelectorStyle getSelectorStyle() {
+        return mStyle;
+    }
+
+    /**
+     * Adds a named highlight layer, or restyles it if it already exists. Highlights
+     * mark adapter positions, like a playing channel or recorded programs, and are
+     * drawn together with the selector in the same pass. Positions follow the adapter's
+     * insert, remove and move notifications. After notifyDataSetChanged they are kept
+     * as they are, so set them again if items changed places.
+     *
+     * @param name name of the layer
+     * @param style style of the highlights
+     * @param position OVER or UNDER the cells
+     */
+    @SuppressWarnings("unused")
+    public void addHighlightLayer(@NonNull String name, @NonNull SelectorStyle style, @SelectorPosition int position) {
+        ensureSelector();
+
+        HighlightLayer layer = findHighlightLayer(name);
+        if (layer == null) {
+            mHighlightLayers.add(new HighlightLayer(name, style, position, this));
+        } else {
+            layer.setStyle(style, position);
+            if (!layer.isEmpty()) invalidate();
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public void removeHighlightLayer(@NonNull String name) {
+        HighlightLayer layer = findHighlightLayer(name);
+        if (layer == null) return;
+
+        mHighlightLayers.remove(layer);
+        if (!layer.isEmpty()) invalidate();
+    }
+
+    /**
+     * @param name name of a layer added with addHighlightLayer
+     * @param position adapter position
+     * @param highlighted true to highlight the position
+     */
+    @SuppressWarnings("unused")
+    public void setHighlighted(@NonNull String name, int position, boolean highlighted) {
+        getHighlightLayer(name).setHighlighted(position, highlighted);
+        invalidate();
+    }
+
+    @SuppressWarnings("unused")
+    public boolean isHighlighted(@NonNull String name, int position) {
+        return getHighlightLayer(name).isHighlighted(position);
+    }
+
+    @SuppressWarnings("unused")
+    public void clearHighlights(@NonNull String name) {
+        getHighlightLayer(name).clear();
+        invalidate();
+    }
+
+    private HighlightLayer findHighlightLayer(String name) {
+        for (int i = 0, count = mHighlightLayers.size(); i < count; i++) {
+            HighlightLayer layer = mHighlightLayers.get(i);
+            if (layer.getName().equals(name)) return layer;
+        }
+        return null;
+    }
+
+    private HighlightLayer getHighlightLayer(String name) {
+        HighlightLayer layer = findHighlightLayer(name);
+        if (layer == null) throw new IllegalArgumentException("No highlight layer named " + name);
+        return layer;
+    }
+
+    @Override
+    public void setAdapter(Adapter adapter) {
+        observeAdapter(adapter);
+        super.setAdapter(adapter);
+    }
+
+    @Override
+    public void swapAdapter(Adapter adapter, boolean removeAndRecycleExistingViews) {
+        observeAdapter(adapter);
+        super.swapAdapter(adapter, removeAndRecycleExistingViews);
+    }
+
+    /**
+     * Moves the observer that keeps highlighted positions in sync to the new adapter
+     */
+    private void observeAdapter(Adapter adapter) {
+        if (getAdapter() != null) getAdapter().unregisterAdapterDataObserver(mHighlightObserver);
+        if (adapter != null) adapter.registerAdapterDataObserver(mHighlightObserver);
+    }
+
+    @SuppressWarnings("unused")
+    public void setStrokePosition(@StrokePosition int strokePosition) {
+        setSelectorStyle(mStyle.buildUpon().setStrokePosition(strokePosition).build());
+    }
+
+    @SuppressWarnings("unused")
+    @StrokePosition
+    public int getStrokePosition() {
+        return mStyle.getStrokePosition();
+    }
+
+    @SuppressWarnings("unused")
+    public void setSelectorPosition(@SelectorPosition int position) {
+        mSelectorPosition = position;
+        if (position != OVER) hideSelectorLayer();
+    }
+
+    @SuppressWarnings("unused")
+    @SelectorPosition
+    public int setSelectorPosition() {
+        return mSelectorPosition;
+    }
+
+    @SuppressWarnings("unused")
+    public void setSelectorShape(@SelectorShape int shape) {
+        setSelectorStyle(mStyle.buildUpon().setSelectorShape(shape).build());
+    }
+
+    @SuppressWarnings("unused")
+    @SelectorShape
+    public int getSelectorShape() {
+        return mStyle.getSelectorShape();
+    }
+
+    /**
+     * Draws the selector with a custom shape, like a squircle or per corner radii.
+     * The outline is rasterized once per cell size, so it costs the same per frame
+     * as the default shape.
+     *
+     * @param outline custom outline, or null to use the selector shape and corner radius
+     */
+    @SuppressWarnings("unused")
+    public void setSelectorOutline(SelectorOutline outline) {
+        setSelectorStyle(mStyle.buildUpon().setOutline(outline).build());
+    }
+
+    @SuppressWarnings("unused")
+    public SelectorOutline getSelectorOutline() {
+        return mStyle.getCustomOutline();
+    }
+
+    /**
+     * RENDER_BITMAP keeps one ARGB_8888 bitmap per state. RENDER_MASK rasterizes
+     * the shape once per geometry into ALPHA_8 masks and applies the stroke and
+     * fill colors while drawing, so color and state changes need no new bitmaps.
+     *
+     * @param renderMode one of RENDER_BITMAP or RENDER_MASK
+     */
+    @SuppressWarnings("unused")
+    public void setRenderMode(@SelectorRenderMode int renderMode) {
+        setSelectorStyle(mStyle.buildUpon().setRenderMode(renderMode).build());
+    }
+
+    @SuppressWarnings("unused")
+    @SelectorRenderMode
+    public int getRenderMode() {
+        return mStyle.getRenderMode();
+    }
+
+    /**
+     * Packs every selector variant into one shared atlas bitmap. Cells of different
+     * sizes then draw sub-regions of the same texture instead of uploading their own.
+     *
+     * @param useAtlas true to draw the selector from an atlas
+     */
+    @SuppressWarnings("unused")
+    public void setUseAtlas(boolean useAtlas) {
+        setSelectorStyle(mStyle.buildUpon().setUseAtlas(useAtlas).build());
+    }
+
+    @SuppressWarnings("unused")
+    public boolean usesAtlas() {
+        return mStyle.usesAtlas();
+    }
+
+    @SuppressWarnings("unused")
+    public void setCornerRadius(float radius) {
+        setSelectorStyle(mStyle.buildUpon().setCornerRadius(radius).build());
+    }
+
+    @SuppressWarnings("unused")
+    public void setCornerRadius(float x, float y) {
+        setSelectorStyle(mStyle.buildUpon().setCornerRadius(x, y).build());
+    }
+
+    /**
+     * @param animate true if selector should animate between focus views
+     */
+    @SuppressWarnings("unused")
+    public void setAnimateSelectorChanges(boolean animate) {
+        mAnimateSelectorChanges = animate;
+    }
+
+    /**
+     * ANIMATOR_UI_THREAD moves the selector from ValueAnimator callbacks on the UI thread.
+     * ANIMATOR_RENDER_THREAD moves it as a hardware layer whose translation and scale,
+     * and the focus zoom, are animated on the render thread on API 21+, so the slide
+     * keeps going while the UI thread is busy. API 18-20 animate the same layer from
+     * the UI thread. It needs hardware acceleration and the OVER position, otherwise
+     * the UI thread animator is used.
+     *
+     * @param animator one of ANIMATOR_UI_THREAD or ANIMATOR_RENDER_THREAD
+     */
+    @SuppressWarnings("unused")
+    public void setSelectorAnimator(@SelectorAnimator int animator) {
+        mSelectorAnimator = animator;
+        if (animator != ANIMATOR_RENDER_THREAD) hideSelectorLayer();
+    }
+
+    @SuppressWarnings("unused")
+    @SelectorAnimator
+    public int getSelectorAnimator() {
+        return mSelectorAnimator;
+    }
+
+    /**
+     * Scales the focused cell up, Leanback style. The cell is on a hardware layer only
+     * while its scale animates. It is scaled through view properties, so neighbours are
+     * not laid out again. The zoom is driven by the animator that moves the selector,
+     * or started in the same frame with the same timing on the render thread, so cell
+     * and selector follow one clock, and the cached selector is stretched without
+     * rendering it again.
+     *
+     * @param zoom scale of the focused cell, 1 to disable
+     */
+    @SuppressWarnings("unused")
+    public void setFocusZoom(float zoom) {
+        mFocusZoom = zoom;
+        setChildrenDrawingOrderEnabled(zoom != 1f);
+        if (zoom == 1f) zoomView(null);
+        startZoom();
+    }
+
+    @SuppressWarnings("unused")
+    public float getFocusZoom() {
+        return mFocusZoom;
+    }
+
+    /**
+     * Keeps the cells within a number of rows (or columns for horizontal grids) of
+     * the focus bound after they scroll off screen. RecyclerView reuses cached views
+     * for their own position without binding them again, so stepping back and forth
+     * near the focus costs no rebind. The cache is sized from the span count so it
+     * covers the radius on both sides.
+     *
+     * @param radius rows or columns kept on each side, 0 for the RecyclerView default
+     */
+    @SuppressWarnings("unused")
+    public void setFocusCacheRadius(int radius) {
+        mFocusCacheRadius = radius;
+        updateViewCacheSize();
+    }
+
+    @SuppressWarnings("unused")
+    public int getFocusCacheRadius() {
+        return mFocusCacheRadius;
+    }
+
+    /**
+     * Sizes the view cache to the focus radius times the span count of the layout manager
+     */
+    private void updateViewCacheSize() {
+        final LayoutManager layoutManager = getLayoutManager();
+        int spanCount = 1;
+        if (layoutManager instanceof GridLayoutManager) {
+            spanCount = ((GridLayoutManager) layoutManager).getSpanCount();
+        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+            spanCount = ((StaggeredGridLayoutManager) layoutManager).getSpanCount();
+        }
+
+        final int size = Math.max(DEFAULT_VIEW_CACHE_SIZE, mFocusCacheRadius * spanCount * 2);
+        if (size == mViewCacheSize) return;
+
+        mViewCacheSize = size;
+        setItemViewCacheSize(size);
+    }
+
+    @Override
+    public void setLayoutManager(LayoutManager layout) {
+        super.setLayoutManager(layout);
+        updateViewCacheSize();
+    }
+
+    @SuppressWarnings("unused")
+    public int getAnimationDuration() {
+        return getDeviceProfile().getAnimationDuration(ANIMATION_DURATION);
+    }
+
+    /**
+     * Chooses render mode, cache budget, animation mode and shadow rendering.
+     * With QUALITY_AUTO the quality starts from the device class and steps down
+     * on sustained jank and back up when frames recover.
+     *
+     * @param quality QUALITY_AUTO or a fixed quality
+     */
+    @SuppressWarnings("unused")
+    public void setDeviceProfile(@DeviceProfile.Quality int quality) {
+        ensureSelector();
+        mRequestedQuality = quality;
+        if (quality == DeviceProfile.QUALITY_AUTO) {
+            applyDeviceProfile(mQualityCeiling);
+        } else {
+            if (mFrameMonitor != null) mFrameMonitor.stop();
+            applyDeviceProfile(quality);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public DeviceProfile getDeviceProfile() {
+        ensureSelector();
+        return mDeviceProfile;
+    }
+
+    /**
+     * Creates the animators, the device profile and the selector drawable.
+     * Grids that never gain focus never pay for them.
+     */
+    private void ensureSelector() {
+        if (mSelectorAnimationSet != null) return;
+
+        mYSize = new ValueAnimator();
+        mXSize = new ValueAnimator();
+        mYLocation = new ValueAnimator();
+        mXLocation = new ValueAnimator();
+
+        mXSize.addUpdateListener(xSizeListener);
+        mYSize.addUpdateListener(ySizeListener);
+        mYLocation.addUpdateListener(yLocationListener);
+        mXLocation.addUpdateListener(xLocationListener);
+
+        mSelectorInterpolator = new AccelerateDecelerateInterpolator();
 
-            if (!edgeChange) {
-                if (mStrokeCellCurrentBounds == null || mStrokeCell == null) return;
+        // Part of the slide, and started on its own when only the zoom changes
+        mZoomAnimator = ValueAnimator.ofFloat(0f, 1f);
+        mZoomAnimator.setInterpolator(mSelectorInterpolator);
+        mZoomAnimator.addUpdateListener(mZoomUpdateListener);
+        mZoomAnimator.addListener(mZoomListener);
 
-                mSelectorAnimationSet.cancel();
-                mStrokeCellCurrentBounds.offsetTo(mStrokeCellCurrentBounds.left, mStrokeCellCurrentBounds.top);
+        mSelectorAnimationSet = new AnimatorSet();
+        mSelectorAnimationSet.playTogether(mXLocation, mYLocation, mXSize, mYSize, mZoomAnimator);
+        mSelectorAnimationSet.setInterpolator(mSelectorInterpolator);
+        mSelectorAnimationSet.addListener(mSelectorAnimationListener);
 
-                setPrevBounds();
+        mSelectorDrawable = new SelectorDrawable();
+        mSelectorDrawable.setCallback(this);
 
-                mStrokeCell.setBounds(mStrokeCellPrevBounds);
-                invalidate();
-            }
-        }
+        mQualityCeiling = DeviceProfile.qualityForDevice(getContext());
+        applyDeviceProfile(mRequestedQuality == DeviceProfile.QUALITY_AUTO ? mQualityCeiling : mRequestedQuality);
     }
 
-    @Override
-    public void smoothScrollToPosition(int position) {
-        mHardScrollChange = true;
-        super.smoothScrollToPosition(position);
+    private boolean isSelectorAnimating() {
+        return mSelectorAnimationSet != null && mSelectorAnimationSet.isRunning();
     }
 
-    @Override
-    public void scrollToPosition(int position) {
-        mHardScrollChange = true;
-        super.scrollToPosition(position);
+    private void cancelSelectorAnimation() {
+        if (mSelectorAnimationSet != null) mSelectorAnimationSet.cancel();
     }
 
-    @Override
-    public void scrollTo(int x, int y) {
-        mHardScrollChange = true;
-        super.scrollTo(x, y);
+    /**
+     * @return true if the selector should move as an animated hardware layer
+     */
+    private boolean useSelectorLayer() {
+        return mSelectorAnimator == ANIMATOR_RENDER_THREAD
+                && mSelectorPosition == OVER
+                && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2
+                && isHardwareAccelerated()
+                && useAnimations();
     }
 
-    @Override
-    public void smoothScrollBy(int dx, int dy) {
-        mHardScrollChange = true;
-        super.smoothScrollBy(dx, dy);
+    private boolean isSelectorLayerShowing() {
+        return mSelectorLayer != null && mSelectorLayer.isShowing();
     }
 
-    @Override
-    public void scrollBy(int x, int y) {
-        mHardScrollChange = true;
-        super.scrollBy(x, y);
+    private void hideSelectorLayer() {
+        if (mLayerAnimator != null) mLayerAnimator.cancel();
+        removeCallbacks(mRenderThreadSettled);
+        syncRenderThreadZoom();
+        if (mSelectorLayer != null) mSelectorLayer.hide();
     }
 
-    @SuppressWarnings("unused")
-    public void setStrokePosition(@StrokePosition int strokePosition) {
-        mStrokePosition = strokePosition;
+    /**
+     * Places the selector layer at the given bounds, ending its slide and the zoom with it
+     */
+    private void snapSelectorLayer(Rect bounds) {
+        if (mLayerAnimator != null && mLayerAnimator.isRunning()) {
+            mLayerAnimator.cancel();
+            finishZoom();
+        }
+        removeCallbacks(mRenderThreadSettled);
+        if (mRenderThreadZoom) finishZoom();
+        mSelectorLayer.show(bounds);
     }
 
-    @SuppressWarnings("unused")
-    @StrokePosition
-    public int getStrokePosition() {
-        return mStrokePosition;
-    }
+    /**
+     * Moves the selector layer from where it is on screen to the given view
+     */
+    private void animateSelectorLayer(View view) {
+        if (mSelectorLayer == null) mSelectorLayer = new SelectorLayer(this, mSelectorDrawable);
 
-    @SuppressWarnings("unused")
-    public void setSelectorPosition(@SelectorPosition int position) {
-        mSelectorPosition = position;
-    }
+        final Rect from = mSelectorLayerFrom;
+        if (mSelectorLayer.isShowing()) {
+            mSelectorLayer.getCurrentBounds(from);
+        } else {
+            cancelSelectorAnimation();
+            from.set(mStrokeCell.getBounds());
+        }
 
-    @SuppressWarnings("unused")
-    @SelectorPosition
-    public int setSelectorPosition() {
-        return mSelectorPosition;
-    }
+        if (mOffsetOnPrev && (mOffsetX == SelectorGeometry.NO_OFFSET || mOffsetY == SelectorGeometry.NO_OFFSET)) {
+            from.offset(-SelectorGeometry.resolveOffset(mOffsetX), -SelectorGeometry.resolveOffset(mOffsetY));
+        }
 
-    @SuppressWarnings("unused")
-    public void setSelectorShape(@SelectorShape int shape) {
-        mSelectorShape = shape;
+        addStrokedView(view, true, false, true, false);
+
+        final long duration = mDeviceProfile.getAnimationDuration(ANIMATION_DURATION);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            mZoomAnimator.cancel();
+            removeCallbacks(mRenderThreadSettled);
+
+            captureZoom();
+            mSelectorLayer.start(from, mStrokeCellCurrentBounds);
+            mSelectorLayer.animate(duration, mSelectorInterpolator);
+            animateZoomOnRenderThread(duration);
+            Systrace.mark(Systrace.ANIMATION_START);
+            postDelayed(mRenderThreadSettled, duration);
+            invalidate();
+            return;
+        }
+
+        if (mLayerAnimator == null) {
+            mLayerAnimator = ValueAnimator.ofFloat(0f, 1f);
+            mLayerAnimator.setInterpolator(mSelectorInterpolator);
+            mLayerAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+                @Override
+                public void onAnimationUpdate(ValueAnimator animation) {
+                    final float fraction = (float) animation.getAnimatedValue();
+                    mSelectorLayer.setFraction(fraction);
+                    applyZoom(fraction);
+                }
+            });
+            mLayerAnimator.addListener(mLayerListener);
+        }
+        mLayerAnimator.cancel();
+        mZoomAnimator.cancel();
+
+        captureZoom();
+        mSelectorLayer.start(from, mStrokeCellCurrentBounds);
+        mLayerAnimator.setDuration(duration);
+        mLayerAnimator.start();
+        invalidate();
     }
 
-    @SuppressWarnings("unused")
-    @SelectorShape
-    public int getSelectorShape() {
-        return mSelectorShape;
+    /**
+     * Counts every redraw of the grid while a navigation trace records, whether
+     * the grid or RecyclerView asked for it
+     */
+    @Override
+    public void invalidate() {
+        if (mTrace != null) mTrace.countInvalidation();
+        super.invalidate();
     }
 
-    @SuppressWarnings("unused")
-    public void setCornerRadius(float radius) {
-        mCornerRadiusX = radius;
-        mCornerRadiusY = radius;
+    /**
+     * Redraws the selector wherever it is currently drawn
+     */
+    private void invalidateStrokeCell() {
+        if (isSelectorLayerShowing()) mSelectorLayer.invalidate();
+        else invalidate();
     }
 
-    @SuppressWarnings("unused")
-    public void setCornerRadius(float x, float y) {
-        mCornerRadiusX = x;
-        mCornerRadiusY = y;
+    private void applyDeviceProfile(@DeviceProfile.Quality int quality) {
+        if (mDeviceProfile != null && mDeviceProfile.getQuality() == quality) return;
+
+        mDeviceProfile = DeviceProfile.create(getContext(), quality);
+        SelectorCache.requestBudget(this, mDeviceProfile.getCacheBudgetKb());
+
+        mSelectorAnimationSet.setDuration(mDeviceProfile.getAnimationDuration(ANIMATION_DURATION));
+        mStyleGeneration++;
     }
 
     /**
-     * @param animate true if selector should animate between focus views
+     * Keeps the frame monitor running while the selector moves in automatic quality mode
      */
-    @SuppressWarnings("unused")
-    public void setAnimateSelectorChanges(boolean animate) {
-        mAnimateSelectorChanges = animate;
-    }
+    private void monitorFrames() {
+        if (mRequestedQuality != DeviceProfile.QUALITY_AUTO) return;
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) return;
 
-    @SuppressWarnings("unused")
-    public int getAnimationDuration() {
-        return ANIMATION_DURATION;
+        if (mFrameMonitor == null) mFrameMonitor = new DeviceProfile.FrameMonitor(mFrameListener);
+        mFrameMonitor.kick();
     }
 
     @SuppressWarnings("unused")
     public float getCornerRadiusX() {
-        return mCornerRadiusX;
+        return mStyle.getCornerRadiusX();
     }
 
     @SuppressWarnings("unused")
     public float getCornerRadiusY() {
-        return mCornerRadiusY;
+        return mStyle.getCornerRadiusY();
     }
 
     @SuppressWarnings("unused")
     public void setFilled(boolean filled) {
-        mIsFilled = filled;
+        setSelectorStyle(mStyle.buildUpon().setFilled(filled).build());
     }
 
     @SuppressWarnings("unused")
     public boolean isFilled() {
-        return mIsFilled;
+        return mStyle.isFilled();
     }
 
     @SuppressWarnings("unused")
     public void setFillColor(int color) {
-        mFillColor = color;
+        setSelectorStyle(mStyle.buildUpon().setFillColor(color).build());
     }
 
     @SuppressWarnings("unused")
     public int getFillColor() {
-        return mFillColor;
+        return mStyle.getFillColor();
     }
 
     @SuppressWarnings("unused")
     public void setFillColorSelected(int color) {
-        mFillColorSelected = color;
+        setSelectorStyle(mStyle.buildUpon().setFillColorSelected(color).build());
     }
 
     @SuppressWarnings("unused")
     public int getFillColorSelected() {
-        return mFillColorSelected;
+        return mStyle.getFillColorSelected();
     }
 
     @SuppressWarnings("unused")
     public void setFillColorClicked(int color) {
-        mFillColorClicked = color;
+        setSelectorStyle(mStyle.buildUpon().setFillColorClicked(color).build());
     }
 
     @SuppressWarnings("unused")
     public int getFillColorClicked() {
-        return mFillColorClicked;
+        return mStyle.getFillColorClicked();
     }
 
     @SuppressWarnings("unused")
     public void setFillAlpha(float alpha) {
-        mFillAlpha = alpha;
+        setSelectorStyle(mStyle.buildUpon().setFillAlpha(alpha).build());
     }
 
     @SuppressWarnings("unused")
     public float getFillAlpha() {
-        return mFillAlpha;
+        return mStyle.getFillAlpha();
     }
 
     @SuppressWarnings("unused")
     public void setFillAlphaSelected(float alpha) {
-        mFillAlphaSelected = alpha;
+        setSelectorStyle(mStyle.buildUpon().setFillAlphaSelected(alpha).build());
     }
 
     @SuppressWarnings("unused")
     public float getFillAlphaSelected() {
-        return mFillAlphaSelected;
+        return mStyle.getFillAlphaSelected();
     }
 
     @SuppressWarnings("unused")
     public void setFillAlphaClicked(float alpha) {
-        mFillAlphaClicked = alpha;
+        setSelectorStyle(mStyle.buildUpon().setFillAlphaClicked(alpha).build());
     }
 
     @SuppressWarnings("unused")
     public float getFillAlphaClicked() {
-        return mFillAlphaClicked;
+        return mStyle.getFillAlphaClicked();
     }
 
     @SuppressWarnings("unused")
     public void setStrokeWidth(float width) {
-        mStrokeWidth = width;
+        setSelectorStyle(mStyle.buildUpon().setStrokeWidth(width).build());
     }
 
     @SuppressWarnings("unused")
     public float getStrokeWidth() {
-        return mStrokeWidth;
+        return mStyle.getStrokeWidth();
     }
 
     @SuppressWarnings("unused")
     public void setStrokeColor(int color) {
-        mStrokeColorSelected = color;
+        setSelectorStyle(mStyle.buildUpon().setStrokeColor(color).build());
     }
 
     @SuppressWarnings("unused")
     public int getStrokeColor() {
-        return mStrokeColor;
+        return mStyle.getStrokeColor();
     }
 
     @SuppressWarnings("unused")
     public void setStrokeColorSelected(int color) {
-        mStrokeColorSelected = color;
+        setSelectorStyle(mStyle.buildUpon().setStrokeColorSelected(color).build());
     }
 
     @SuppressWarnings("unused")
     public int getStrokeColorSelected() {
-        return mStrokeColorSelected;
+        return mStyle.getStrokeColorSelected();
     }
 
     @SuppressWarnings("unused")
     public void setStrokeColorClicked(int color) {
-        mStrokeColorClicked = color;
+        setSelectorStyle(mStyle.buildUpon().setStrokeColorClicked(color).build());
     }
 
     @SuppressWarnings("unused")
     public int getStrokeColorClicked() {
-        return mStrokeColorClicked;
+        return mStyle.getStrokeColorClicked();
     }
 
     /**
@@ -565,10 +1452,7 @@ public class TVGridView extends RecyclerView {
      */
     @SuppressWarnings("unused")
     public void setStrokeMargin(float left, float top, float right, float bottom) {
-        mStrokeMarginLeft = left;
-        mStrokeMarginTop = top;
-        mStrokeMarginRight = right;
-        mStrokeMarginBottom = bottom;
+        setSelectorStyle(mStyle.buildUpon().setStrokeMargin(left, top, right, bottom).build());
     }
 
     /**
@@ -588,30 +1472,27 @@ public class TVGridView extends RecyclerView {
      */
     @SuppressWarnings("unused")
     public void setStrokeMargin(float all) {
-        mStrokeMarginLeft = all;
-        mStrokeMarginTop = all;
-        mStrokeMarginRight = all;
-        mStrokeMarginBottom = all;
+        setSelectorStyle(mStyle.buildUpon().setStrokeMargin(all).build());
     }
 
     @SuppressWarnings("unused")
     public float getStrokeMarginLeft() {
-        return mStrokeMarginLeft;
+        return mStyle.getStrokeMarginLeft();
     }
 
     @SuppressWarnings("unused")
     public float getStrokeMarginTop() {
-        return mStrokeMarginTop;
+        return mStyle.getStrokeMarginTop();
     }
 
     @SuppressWarnings("unused")
     public float getStrokeMarginRight() {
-        return mStrokeMarginRight;
+        return mStyle.getStrokeMarginRight();
     }
 
     @SuppressWarnings("unused")
     public float getStrokeMarginBottom() {
-        return mStrokeMarginBottom;
+        return mStyle.getStrokeMarginBottom();
     }
 
     /**
@@ -633,10 +1514,7 @@ public class TVGridView extends RecyclerView {
      */
     @SuppressWarnings("unused")
     public void setStrokeSpacing(float left, float top, float right, float bottom) {
-        mStrokeSpacingLeft = left;
-        mStrokeSpacingTop = top;
-        mStrokeSpacingRight = right;
-        mStrokeSpacingBottom = bottom;
+        setSelectorStyle(mStyle.buildUpon().setStrokeSpacing(left, top, right, bottom).build());
     }
 
     /**
@@ -655,30 +1533,50 @@ public class TVGridView extends RecyclerView {
      */
     @SuppressWarnings("unused")
     public void setStrokeSpacing(float all) {
-        mStrokeSpacingLeft = all;
-        mStrokeSpacingTop = all;
-        mStrokeSpacingRight = all;
-        mStrokeSpacingBottom = all;
+        setSelectorStyle(mStyle.buildUpon().setStrokeSpacing(all).build());
+    }
+
+    /**
+     * Draws a soft glow around the selector instead of the inner shadow edge. The blur
+     * is computed once per cell size on a background thread and cached, so moving the
+     * selector only blits it.
+     *
+     * @param radius blur radius in pixels, 0 to disable
+     * @param color glow color
+     */
+    @SuppressWarnings("unused")
+    public void setGlow(float radius, int color) {
+        setSelectorStyle(mStyle.buildUpon().setGlow(radius, color).build());
+    }
+
+    @SuppressWarnings("unused")
+    public float getGlowRadius() {
+        return mStyle.getGlowRadius();
+    }
+
+    @SuppressWarnings("unused")
+    public int getGlowColor() {
+        return mStyle.getGlowColor();
     }
 
     @SuppressWarnings("unused")
     public float getStrokeSpacingLeft() {
-        return mStrokeSpacingLeft;
+        return mStyle.getStrokeSpacingLeft();
     }
 
     @SuppressWarnings("unused")
     public float getStrokeSpacingTop() {
-        return mStrokeSpacingTop;
+        return mStyle.getStrokeSpacingTop();
     }
 
     @SuppressWarnings("unused")
     public float getStrokeSpacingRight() {
-        return mStrokeSpacingRight;
+        return mStyle.getStrokeSpacingRight();
     }
 
     @SuppressWarnings("unused")
     public float getStrokeSpacingBottom() {
-        return mStrokeSpacingBottom;
+        return mStyle.getStrokeSpacingBottom();
     }
 
     /**
@@ -692,10 +1590,11 @@ public class TVGridView extends RecyclerView {
     public void clickView(final View view, int offsetX, int offsetY) {
         if (view == null) return;
 
+        final boolean rebound = offsetX != mOffsetX || offsetY != mOffsetY;
         mOffsetX = offsetX;
         mOffsetY = offsetY;
 
-        hardUpdateSelector(view, true, true);
+        mPendingUpdates.click(view, false, rebound);
     }
 
     /**
@@ -707,17 +1606,7 @@ public class TVGridView extends RecyclerView {
     public void clickView(final View view) {
         if (view == null) return;
 
-        final Drawable clone = mStrokeCell.mutate();
-        hardUpdateSelector(view, true, true);
-
-        new Handler().postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                mStrokeCell = clone;
-                invalidate();
-            }
-        }, 100);
-
+        mPendingUpdates.click(view, true, false);
     }
 
     /**
@@ -759,21 +1648,209 @@ public class TVGridView extends RecyclerView {
      */
     private void highlightViewBase(final View view, final boolean focused) {
         if (!focused) {
-            if (mSelectorDeselectRunnable == null) mSelectorDeselectRunnable = new DeselectRunnable(view);
-            mSelectorDeselectHandler.postDelayed(mSelectorDeselectRunnable, 50);
+            mSelectorState.blur(view);
             return;
         }
-        mSelectorDeselectHandler.removeCallbacksAndMessages(null);
-        if (useAnimations() && mStrokeCell != null) {
-            prepareAndPerformSelectorAnimation(view, mSelectorAnimationSet.isRunning());
+        mSelectorState.focus(view);
+        if (mTrace != null) mTrace.recordFocus(view.getParent() == this ? getChildAdapterPosition(view) : NO_POSITION);
+        monitorFrames();
+        mPendingUpdates.focus(view);
+    }
+
+    /**
+     * Moves the selector to the focused view, once per frame
+     */
+    private void moveSelector(View view) {
+        if (mFocusZoom != 1f) zoomView(view);
+
+        final int jumpTransition = mPendingJumpTransition;
+        mPendingJumpTransition = JUMP_NONE;
+
+        boolean animated = true;
+        if (jumpTransition != JUMP_NONE) {
+            cancelSelectorAnimation();
+            hideSelectorLayer();
+            finishZoom();
+            hardUpdateSelector(view, true, false);
+            clearOffset();
+            if (jumpTransition == JUMP_FADE && useAnimations()) fadeInSelector();
+            else animated = false;
+        } else if (useSelectorLayer() && mStrokeCell != null) {
+            animateSelectorLayer(view);
+        } else if (useAnimations() && mStrokeCell != null) {
+            hideSelectorLayer();
+            prepareAndPerformSelectorAnimation(view, isSelectorAnimating());
         } else {
+            hideSelectorLayer();
+            finishZoom();
             hardUpdateSelector(view, true, false);
             clearOffset();
+            animated = false;
+        }
+
+        if (mLatency != null) mLatency.onSelectorMoved(animated);
+    }
+
+    /**
+     * Makes the given view the zoomed one and the previously zoomed view the one
+     * shrinking back. Nothing is scaled until the selector animation, startZoom or
+     * finishZoom applies it.
+     *
+     * @param view view to zoom, null to only restore the zoomed view
+     */
+    private void zoomView(View view) {
+        if (view == mZoomedView) return;
+
+        syncRenderThreadZoom();
+
+        // A view still shrinking from an earlier move snaps back
+        if (mUnzoomedView != null && mUnzoomedView != view) {
+            setCellScale(mUnzoomedView, 1f);
+            ViewCompat.setLayerType(mUnzoomedView, ViewCompat.LAYER_TYPE_NONE, null);
+        }
+        mUnzoomedView = mZoomedView;
+        mZoomedView = view;
+        invalidate();
+    }
+
+    /**
+     * Animates a zoom change that has no selector movement to follow, like losing focus
+     */
+    private void startZoom() {
+        if (mZoomedView == null && mUnzoomedView == null) return;
+
+        if (useAnimations()) {
+            captureZoom();
+            mZoomAnimator.setDuration(mDeviceProfile.getAnimationDuration(ANIMATION_DURATION));
+            mZoomAnimator.start();
+        } else {
+            finishZoom();
+        }
+    }
+
+    /**
+     * Takes the current scales as the start of the next zoom animation, so a restart
+     * mid-flight continues from what is on screen. Cells that change scale go on a
+     * hardware layer until finishZoom.
+     */
+    private void captureZoom() {
+        syncRenderThreadZoom();
+        mZoomStart = mZoomedView == null ? 1f : ViewCompat.getScaleX(mZoomedView);
+        mUnzoomStart = mUnzoomedView == null ? 1f : ViewCompat.getScaleX(mUnzoomedView);
+
+        if (mZoomedView != null && mZoomStart != mFocusZoom) {
+            ViewCompat.setLayerType(mZoomedView, ViewCompat.LAYER_TYPE_HARDWARE, null);
+        }
+        if (mUnzoomedView != null && mUnzoomStart != 1f) {
+            ViewCompat.setLayerType(mUnzoomedView, ViewCompat.LAYER_TYPE_HARDWARE, null);
+        }
+    }
+
+    /**
+     * @param fraction interpolated fraction of the animator driving the selector
+     */
+    private void applyZoom(float fraction) {
+        if (mZoomedView != null) setCellScale(mZoomedView, mZoomStart + (mFocusZoom - mZoomStart) * fraction);
+        if (mUnzoomedView != null) setCellScale(mUnzoomedView, mUnzoomStart + (1f - mUnzoomStart) * fraction);
+    }
+
+    /**
+     * Scales the zoomed and the shrinking cell with ViewPropertyAnimators that have no
+     * listeners, so they run on the render thread next to the selector layer. They start
+     * in the same frame with the same duration and interpolator as the layer slide.
+     */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private void animateZoomOnRenderThread(long duration) {
+        if (mZoomedView != null) {
+            mZoomedView.animate().scaleX(mFocusZoom).scaleY(mFocusZoom)
+                    .setDuration(duration).setInterpolator(mSelectorInterpolator).start();
+        }
+        if (mUnzoomedView != null) {
+            mUnzoomedView.animate().scaleX(1f).scaleY(1f)
+                    .setDuration(duration).setInterpolator(mSelectorInterpolator).start();
         }
+        mRenderThreadZoom = true;
+    }
+
+    /**
+     * Stops a render thread zoom and writes the scales on screen back into the cells,
+     * whose properties the render thread does not update
+     */
+    private void syncRenderThreadZoom() {
+        if (!mRenderThreadZoom) return;
+
+        mRenderThreadZoom = false;
+        if (mZoomedView != null) ViewCompat.animate(mZoomedView).cancel();
+        if (mUnzoomedView != null) ViewCompat.animate(mUnzoomedView).cancel();
+        applyZoom(mSelectorLayer.getFraction());
+    }
+
+    /**
+     * Puts the zoomed and the shrinking cell at their final scales and off their layers
+     */
+    private void finishZoom() {
+        if (mRenderThreadZoom) {
+            mRenderThreadZoom = false;
+            if (mZoomedView != null) ViewCompat.animate(mZoomedView).cancel();
+            if (mUnzoomedView != null) ViewCompat.animate(mUnzoomedView).cancel();
+        }
+        if (mZoomedView != null) {
+            setCellScale(mZoomedView, mFocusZoom);
+            ViewCompat.setLayerType(mZoomedView, ViewCompat.LAYER_TYPE_NONE, null);
+        }
+        if (mUnzoomedView != null) {
+            setCellScale(mUnzoomedView, 1f);
+            ViewCompat.setLayerType(mUnzoomedView, ViewCompat.LAYER_TYPE_NONE, null);
+            mUnzoomedView = null;
+        }
+        mZoomStart = mUnzoomStart = 1f;
+    }
+
+    private static void setCellScale(View view, float scale) {
+        ViewCompat.setScaleX(view, scale);
+        ViewCompat.setScaleY(view, scale);
     }
 
     private void hardUpdateSelector(View view, boolean focused, boolean clicked) {
         addStrokedView(view, focused, clicked, true, true);
+        if (isSelectorLayerShowing()) snapSelectorLayer(mStrokeCellCurrentBounds);
+    }
+
+    /**
+     * Flips the current selector to the variant for the given state.
+     * No bitmap is rendered and the cache is not consulted.
+     */
+    private void updateSelectorState(boolean focused, boolean clicked) {
+        if (mStrokeCell == null) return;
+
+        final int level = SelectorDrawable.levelFor(focused, clicked);
+        SelectorRendering rendering = mStrokeCell.getRendering();
+        if (mResolvedGeneration != mStyleGeneration || !rendering.isValid()) {
+            resolveSelector(rendering.getWidth(), rendering.getHeight(), level);
+            invalidateStrokeCell();
+        } else if (mStrokeCell.setLevel(level)) {
+            invalidateStrokeCell();
+        }
+    }
+
+    /**
+     * Bumps the selector generation after a style change and re-renders
+     * the visible selector once. A running animation is left alone and
+     * the selector is re-rendered when it ends.
+     */
+    private void invalidateSelector() {
+        mStyleGeneration++;
+        if (!isSelectorAnimating()) refreshSelector();
+    }
+
+    /**
+     * Re-renders the visible selector in its current state
+     */
+    private void refreshSelector() {
+        View view = mSelectorState.getView();
+        if (mStrokeCell == null || view == null) return;
+
+        addStrokedView(view, mStrokeCell.getLevel() != SelectorDrawable.LEVEL_SELECTED, mStrokeCell.getLevel() == SelectorDrawable.LEVEL_CLICKED, true, true);
     }
 
     private void setPrevBounds() {
@@ -788,11 +1865,11 @@ public class TVGridView extends RecyclerView {
     }
 
     private void prepareAndPerformSelectorAnimation(View view, boolean running) {
-        if (running) mSelectorAnimationSet.cancel();
+        if (running) cancelSelectorAnimation();
         else setPrevBounds();
 
-        if (mOffsetOnPrev && (mOffsetX == -1 || mOffsetY == -1)) {
-            mStrokeCellPrevBounds.offset(-(mOffsetX == -1 ? 0 : mOffsetX), -(mOffsetY == -1 ? 0 : mOffsetY));
+        if (mOffsetOnPrev && (mOffsetX == SelectorGeometry.NO_OFFSET || mOffsetY == SelectorGeometry.NO_OFFSET)) {
+            mStrokeCellPrevBounds.offset(-SelectorGeometry.resolveOffset(mOffsetX), -SelectorGeometry.resolveOffset(mOffsetY));
         }
 
         addStrokedView(view, true, false, !running, false);
@@ -846,145 +1923,147 @@ public class TVGridView extends RecyclerView {
     };
 
     private void performSelectorAnimation() {
-        if (mStrokeCellPrevBounds == null || mStrokeCell == null) return;
+        if (mStrokeCellPrevBounds == null || mStrokeCell == null) {
+            finishZoom();
+            return;
+        }
 
-        mYSize.setIntValues(mStrokeCellPrevBounds.bottom, mStrokeCellCurrentBounds.bottom);
-        mXSize.setIntValues(mStrokeCellPrevBounds.right, mStrokeCellCurrentBounds.right);
+        mSelectorAnimationFrom.set(mStrokeCellPrevBounds);
+        setSelectorAnimationValues(mSelectorAnimationFrom, mStrokeCellCurrentBounds);
 
         mStrokeCellPrevBounds.right = mStrokeCellPrevBounds.left + (mStrokeCellCurrentBounds.right - mStrokeCellCurrentBounds.left);
         mStrokeCellPrevBounds.bottom = mStrokeCellPrevBounds.top + (mStrokeCellCurrentBounds.bottom - mStrokeCellCurrentBounds.top);
 
-        mYLocation.setIntValues(mStrokeCellPrevBounds.top, mStrokeCellCurrentBounds.top);
-        mXLocation.setIntValues(mStrokeCellPrevBounds.left, mStrokeCellCurrentBounds.left);
-
+        captureZoom();
         mSelectorAnimationSet.start();
     }
 
     /**
-     * Creates the stroke cell with the appropriate bitmap and of appropriate
-     * size. The stroke cell's BitmapDrawable is drawn on top or under of the bitmap every
-     * single time an invalidate call is made.
+     * Sets the start and end values of the slide. Also used on a running slide,
+     * which picks up the new values on its next frame without losing its progress.
      */
-    private void addStrokedView(final View view, final boolean focused,  final boolean clicked, final boolean setBounds, final boolean invalidate) {
-        setCorrectBounds(view);
-
-        String id = MessageFormat.format(
-                "{0}:{1}:{2}:{3}:{4}:{5}",
-                mIsFilled,
-                mStrokeWidth,
-                mStrokeColor,
-                mFillColor,
-                view.getHeight(),
-                view.getWidth()
-        );
-
-        BitmapDrawable bd = mCache.get(id);
-        if (bd == null) {
-            bd = new BitmapDrawable(getResources(), generateBitmap(view.getWidth(), view.getHeight(), focused, clicked));
-            mCache.put(id, bd);
-        }
-        mStrokeCell = bd;
-        if (setBounds) mStrokeCell.setBounds(mStrokeCellCurrentBounds);
-        if (invalidate) invalidate();
+    private void setSelectorAnimationValues(Rect from, Rect to) {
+        mYSize.setIntValues(from.bottom, to.bottom);
+        mXSize.setIntValues(from.right, to.right);
+        mYLocation.setIntValues(from.top, to.top);
+        mXLocation.setIntValues(from.left, to.left);
     }
 
-    private void setCorrectBounds(View v) {
-        int spacing = 0;
-        switch (mStrokePosition) {
-            case INSIDE:
-                spacing = 0;
-                break;
-            case CENTER:
-                spacing = (int) mStrokeWidth;
-                break;
-            case OUTSIDE:
-                spacing = (int) mStrokeWidth * 2;
-                break;
+    /**
+     * Creates the stroke cell with the appropriate bitmaps and of appropriate
+     * size. The stroke cell's SelectorDrawable is drawn on top or under of the bitmap every
+     * single time an invalidate call is made. All state variants are rendered together,
+     * so the cache key only depends on style and size.
+     */
+    private void addStrokedView(final View view, final boolean focused,  final boolean clicked, final boolean setBounds, final boolean invalidate) {
+        Systrace.begin(Systrace.ADD_STROKED_VIEW);
+        try {
+            ensureSelector();
+            setCorrectBounds(view);
+            if (mTrace != null) mTrace.recordSelector(mStrokeCellCurrentBounds);
+
+            resolveSelector(view.getWidth(), view.getHeight(), SelectorDrawable.levelFor(focused, clicked));
+            if (setBounds) mStrokeCell.setBounds(mStrokeCellCurrentBounds);
+            if (invalidate) invalidateStrokeCell();
+        } finally {
+            Systrace.end();
         }
+    }
 
-        mOffsetOnPrev = mOffsetX != -1 || mOffsetY != -1;
+    /**
+     * Points the stroke cell at the cached rendering for the current style and size
+     */
+    private void resolveSelector(int w, int h, int level) {
+        final boolean mask = mStyle.getRenderMode() == RENDER_MASK || mDeviceProfile.isMaskRendering();
 
-        int w = v.getWidth();
-        int h = v.getHeight();
-        int w_scaled = v.getWidth() + spacing;
-        int h_scaled = v.getHeight() + spacing;
-        int top = v.getTop() - ((h_scaled - h) / 2) + (mOffsetY == -1 ? 0 : mOffsetY);
-        int left = v.getLeft() - ((w_scaled - w) / 2) + (mOffsetX == -1 ? 0 : mOffsetX);
+        final boolean shadow = mDeviceProfile.drawsShadow();
 
-        mStrokeCellCurrentBounds = new Rect(
-                (int) (left - mStrokeSpacingLeft),
-                (int) (top - mStrokeSpacingTop),
-                (int) (left + w_scaled + mStrokeSpacingRight),
-                (int) (top + h_scaled + mStrokeSpacingBottom));
+        mSelectorDrawable.setRendering(SelectorRenderer.obtain(mStyle, mask, shadow && !mStyle.hasGlow(), w, h), mStyle, shadow);
+        mSelectorDrawable.setLevel(level);
+        mResolvedGeneration = mStyleGeneration;
+        mStrokeCell = mSelectorDrawable;
     }
 
     /**
-     * Generates a bitmap according to the size and state of a view in the recycler view
-     *
-     * @param w width of the bitmap
-     * @param h height of the bitmap
-     * @param focused true if the view is focused
-     * @param clicked true if the view is clicked
-     * @return Bitmap
-     */
-    private Bitmap generateBitmap(int w, int h, boolean focused, boolean clicked) {
-        Bitmap bitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
-        Canvas canvas = new Canvas(bitmap);
-
-        RectF fillRect = new RectF(mStrokeMarginLeft, mStrokeMarginTop, w-mStrokeMarginRight, h-mStrokeMarginBottom);
-        RectF shadowRect = new RectF(mStrokeWidth +mStrokeMarginLeft, mStrokeWidth +mStrokeMarginTop, w- mStrokeWidth -mStrokeMarginRight, h- mStrokeWidth -mStrokeMarginBottom);
-        RectF cutoutRect = new RectF(mStrokeWidth +mStrokeMarginLeft+2, mStrokeWidth +mStrokeMarginTop+2, w- mStrokeWidth -mStrokeMarginRight-1, h- mStrokeWidth -mStrokeMarginBottom-1);
-
-        if (mStrokeWidth > 0.0f) {
-            sStrokePaint.setColor(clicked ? mStrokeColorClicked : focused ? mStrokeColor : mStrokeColorSelected);
-            paintCanvas(canvas, fillRect, sStrokePaint);
-
-            if (!mIsFilled) {
-                paintCanvas(canvas, shadowRect, sShadowPaint);
-            } else {
-                cutoutRect = shadowRect;
-            }
+     * Resolves the selector again when its atlas dropped the regions it draws from,
+     * which another grid sharing the atlas can cause at any time
+     */
+    private void revalidateSelector() {
+        if (mStrokeCell == null) return;
 
-            paintCanvas(canvas, cutoutRect, sCutoutPaint);
-        }
+        final SelectorRendering rendering = mStrokeCell.getRendering();
+        if (rendering == null || rendering.isValid()) return;
 
-        if (mIsFilled) {
-            sFillPaint.setColor(clicked ? mFillColorClicked : focused ? mFillColor : mFillColorSelected);
-            sFillPaint.setAlpha((int) Math.ceil((clicked ? mFillAlphaClicked : focused ? mFillAlpha : mFillAlphaSelected) * 255));
-            paintCanvas(canvas, cutoutRect, sFillPaint);
-        }
+        resolveSelector(rendering.getWidth(), rendering.getHeight(), mStrokeCell.getLevel());
+        if (isSelectorLayerShowing()) mSelectorLayer.invalidate();
+    }
+
+    private void setCorrectBounds(View v) {
+        mOffsetOnPrev = SelectorGeometry.hasOffset(mOffsetX, mOffsetY);
 
-        return bitmap;
+        if (mStrokeCellCurrentBounds == null) mStrokeCellCurrentBounds = new Rect();
+        computeSelectorBounds(v, mStyle, mOffsetX, mOffsetY, v == mZoomedView ? mFocusZoom : 1f, mStrokeCellCurrentBounds);
     }
 
     /**
-     * Helper method to paint the canvas used in generate bitmap
+     * Computes the selector bounds of a cell for the given style, see {@link SelectorGeometry}
      *
-     * @param canvas the canvas used to draw onto
-     * @param rectF size
-     * @param paint paint
-     */
-    private void paintCanvas(Canvas canvas, RectF rectF, Paint paint) {
-        if (mSelectorShape == RECTANGLE) {
-            canvas.drawRoundRect(rectF, mCornerRadiusX, mCornerRadiusY, paint);
-        } else if (mSelectorShape == CIRCLE) {
-            canvas.drawCircle(rectF.centerX(), rectF.centerY(), rectF.width() / 2, paint);
-        } else {
-            throw new IllegalArgumentException("Selector shape must be one of RECTANGLE or CIRCLE");
+     * @param scale scale of the cell around its center
+     * @param out receives the bounds in grid coordinates
+     */
+    private void computeSelectorBounds(View v, SelectorStyle style, int offsetX, int offsetY, float scale, Rect out) {
+        final int[] bounds = mGeometryBounds;
+        SelectorGeometry.computeBounds(v.getLeft(), v.getTop(), v.getWidth(), v.getHeight(),
+                style.getStrokePosition(), style.getStrokeWidth(),
+                style.getStrokeSpacingLeft(), style.getStrokeSpacingTop(),
+                style.getStrokeSpacingRight(), style.getStrokeSpacingBottom(),
+                offsetX, offsetY, bounds);
+        if (scale != 1f) {
+            SelectorGeometry.scale(bounds, scale, v.getLeft() + v.getWidth() / 2f, v.getTop() + v.getHeight() / 2f);
+        }
+        out.set(bounds[SelectorGeometry.LEFT], bounds[SelectorGeometry.TOP],
+                bounds[SelectorGeometry.RIGHT], bounds[SelectorGeometry.BOTTOM]);
+    }
+
+    /**
+     * Draws every highlight layer at the given position in one pass over the
+     * visible children. Off-screen positions cost nothing.
+     */
+    private void drawHighlights(Canvas c, @SelectorPosition int position) {
+        if (mHighlightLayers.isEmpty()) return;
+
+        final boolean shadow = mDeviceProfile.drawsShadow();
+        for (int i = 0, count = getChildCount(); i < count; i++) {
+            final View child = getChildAt(i);
+            final int adapterPosition = getChildAdapterPosition(child);
+            if (adapterPosition == NO_POSITION) continue;
+
+            for (int l = 0, layers = mHighlightLayers.size(); l < layers; l++) {
+                HighlightLayer layer = mHighlightLayers.get(l);
+                if (layer.getPosition() != position || !layer.isHighlighted(adapterPosition)) continue;
+
+                final SelectorStyle style = layer.getStyle();
+                final boolean mask = style.getRenderMode() == RENDER_MASK || mDeviceProfile.isMaskRendering();
+                computeSelectorBounds(child, style, SelectorGeometry.NO_OFFSET, SelectorGeometry.NO_OFFSET,
+                        ViewCompat.getScaleX(child), mHighlightBounds);
+                layer.draw(c, mHighlightBounds, child.getWidth(), child.getHeight(), mask, shadow, mStyleGeneration);
+            }
         }
     }
 
     /**
      * onDraw gets invoked before all the child views are about to be drawn.
-     * By overriding this method, the stroke cell (BitmapDrawable) can be drawn
+     * By overriding this method, the stroke cell (SelectorDrawable) can be drawn
      * under the RecyclerViews' items whenever the RecyclerViews is redrawn.
      *
      * @param c canvas
      */
     @Override
     public void onDraw(@NonNull final Canvas c) {
+        revalidateSelector();
+        drawHighlights(c, UNDER);
         if (mSelectorPosition == UNDER) {
-            if (mStrokeCell != null) {
+            if (mStrokeCell != null && !isSelectorLayerShowing()) {
                 mStrokeCell.draw(c);
             }
         }
@@ -993,7 +2072,7 @@ public class TVGridView extends RecyclerView {
 
     /**
      * dispatchDraw gets invoked when all the child views are about to be drawn.
-     * By overriding this method, the stroke cell (BitmapDrawable) can be drawn
+     * By overriding this method, the stroke cell (SelectorDrawable) can be drawn
      * over the RecyclerViews' items whenever the RecyclerViews is redrawn.
      *
      * @param c canvas
@@ -1001,25 +2080,35 @@ public class TVGridView extends RecyclerView {
     @Override
     protected void dispatchDraw(@NonNull final Canvas c) {
         super.dispatchDraw(c);
+        revalidateSelector();
 
+        drawHighlights(c, OVER);
         if (mSelectorPosition == OVER) {
-            if (mStrokeCell != null) {
+            if (mStrokeCell != null && !isSelectorLayerShowing()) {
                 mStrokeCell.draw(c);
             }
         }
+
+        // Both selector positions and the selector layer are drawn by the time this frame gets here
+        if (mLatency != null) mLatency.onSelectorDrawn();
     }
 
     /**
      * @return true if selector should animate movement
      */
     public boolean useAnimations() {
-        return mAnimateSelectorChanges;
+        return mAnimateSelectorChanges && getDeviceProfile().getAnimationMode() != DeviceProfile.ANIMATION_SNAP;
     }
 
     /**
      * Clear highlighted view
      */
     public void clearHighlightedView() {
+        mSelectorState.reset();
+        mPendingUpdates.cancel();
+        hideSelectorLayer();
+        zoomView(null);
+        startZoom();
         mStrokeCell = null;
         mStrokeCellPrevBounds = null;
         invalidate();
@@ -1030,8 +2119,119 @@ public class TVGridView extends RecyclerView {
      * Clear offset
      */
     private void clearOffset() {
-        mOffsetY = -1;
-        mOffsetX = -1;
+        mOffsetY = SelectorGeometry.NO_OFFSET;
+        mOffsetX = SelectorGeometry.NO_OFFSET;
+    }
+
+    /**
+     * Draws the zoomed cell last, so it is not covered by its neighbours
+     */
+    @Override
+    protected int getChildDrawingOrder(int childCount, int i) {
+        if (mZoomedView == null) return i;
+
+        // Called for every child of every pass, only search when the children changed
+        if (mZoomedIndex < 0 || mZoomedIndex >= childCount || getChildAt(mZoomedIndex) != mZoomedView) {
+            mZoomedIndex = indexOfChild(mZoomedView);
+        }
+        final int zoomed = mZoomedIndex;
+        if (zoomed < 0) return i;
+
+        if (i == childCount - 1) return zoomed;
+        return i < zoomed ? i : i + 1;
+    }
+
+    /**
+     * Selector drawables invalidate themselves when their glow is ready
+     */
+    @Override
+    public void invalidateDrawable(@NonNull Drawable drawable) {
+        if (drawable == mSelectorDrawable) {
+            invalidateStrokeCell();
+        } else if (drawable instanceof SelectorDrawable) {
+            invalidate();
+        } else {
+            super.invalidateDrawable(drawable);
+        }
+    }
+
+    /**
+     * Starts recording key events, focus changes, scroll deltas and selector
+     * updates of this grid, replacing a running trace
+     *
+     * @param capacity maximum number of events kept
+     * @return the trace being recorded
+     */
+    @SuppressWarnings("unused")
+    public NavigationTrace startNavigationTrace(int capacity) {
+        stopNavigationTrace();
+        mTrace = new NavigationTrace(capacity);
+        mTrace.start();
+        return mTrace;
+    }
+
+    /**
+     * @return the finished trace, or null if none was recording
+     */
+    @SuppressWarnings("unused")
+    public NavigationTrace stopNavigationTrace() {
+        final NavigationTrace trace = mTrace;
+        if (trace != null) trace.stop();
+        mTrace = null;
+        return trace;
+    }
+
+    /**
+     * Measures every key press from the key event to the first frame showing the
+     * moved selector, and from there until its animation settles. Samples go into
+     * fixed-size histograms that can be read from any thread, see
+     * {@link LatencyHistogram#dump()}.
+     *
+     * @param enabled true to start measuring, false to stop and drop the histograms
+     */
+    @SuppressWarnings("unused")
+    public void setLatencyTracking(boolean enabled) {
+        if (enabled == (mLatency != null)) return;
+        mLatency = enabled ? new SelectorLatency() : null;
+    }
+
+    /**
+     * @return key event to first selector frame latencies, or null if tracking is off
+     */
+    @SuppressWarnings("unused")
+    public LatencyHistogram getKeyLatencyHistogram() {
+        return mLatency == null ? null : mLatency.getFirstFrame();
+    }
+
+    /**
+     * @return first selector frame to settled selector latencies, or null if tracking is off
+     */
+    @SuppressWarnings("unused")
+    public LatencyHistogram getSettleLatencyHistogram() {
+        return mLatency == null ? null : mLatency.getSettle();
+    }
+
+    @Override
+    public boolean dispatchKeyEvent(KeyEvent event) {
+        if (mTrace != null) mTrace.recordKey(event);
+        if (mLatency != null && event.getAction() == KeyEvent.ACTION_DOWN) mLatency.onKeyDown(event.getEventTime());
+        return super.dispatchKeyEvent(event);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (mDeviceProfile != null) SelectorCache.requestBudget(this, mDeviceProfile.getCacheBudgetKb());
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        SelectorCache.releaseBudget(this);
+        mSelectorState.cancel();
+        mPendingUpdates.cancel();
+        hideSelectorLayer();
+        if (mFrameMonitor != null) mFrameMonitor.stop();
+        super.onDetachedFromWindow();
     }
 
     @Override
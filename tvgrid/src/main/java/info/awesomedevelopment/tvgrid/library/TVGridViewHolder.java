@@ -0,0 +1,41 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * View holder for {@link TVGridAdapter}. The adapter makes the item view focusable
+ * and installs its shared focus listener when the holder is created, so binding
+ * does not need to touch either.
+ */
+@SuppressWarnings("unused")
+public class TVGridViewHolder extends RecyclerView.ViewHolder {
+
+    public TVGridViewHolder(View itemView) {
+        super(itemView);
+    }
+
+    /**
+     * Called after the grid has moved the selector to or away from this holder
+     *
+     * @param focused true if the item view gained focus
+     */
+    protected void onFocusChanged(boolean focused) {
+    }
+}
@@ -0,0 +1,227 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import android.app.Activity;
+import android.support.v7.widget.GridLayoutManager;
+import android.view.KeyEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.util.Scheduler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+/**
+ * Replays a D-pad trace on the JVM against a synthetic adapter and reports
+ * selector updates, invalidations, allocations and cache misses. Replays of
+ * the same trace must produce the same focus moves and counters.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class NavigationTraceCorpusTest {
+
+    private static final int COLUMNS = 4;
+    private static final int ITEMS = 12;
+    private static final int CELL_SIZE = 100;
+    private static final int CAPACITY = 256;
+    private static final long KEY_INTERVAL = 120;
+    private static final long KEY_HOLD = 40;
+
+    private static final int[] KEYS = {
+            KeyEvent.KEYCODE_DPAD_RIGHT,
+            KeyEvent.KEYCODE_DPAD_RIGHT,
+            KeyEvent.KEYCODE_DPAD_DOWN,
+            KeyEvent.KEYCODE_DPAD_LEFT,
+            KeyEvent.KEYCODE_DPAD_DOWN,
+            KeyEvent.KEYCODE_DPAD_RIGHT,
+            KeyEvent.KEYCODE_DPAD_UP,
+    };
+
+    private static final List<Integer> FOCUS_PATH = Arrays.asList(1, 2, 6, 5, 9, 10, 6);
+
+    private TVGridView mGrid;
+    private long mAllocatedBytes;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+
+        mGrid = new TVGridView(activity);
+        mGrid.setAnimateSelectorChanges(false);
+        mGrid.setLayoutManager(new GridLayoutManager(activity, COLUMNS));
+
+        Adapter adapter = new Adapter();
+        adapter.setCellSize(CELL_SIZE, CELL_SIZE);
+        mGrid.setAdapter(adapter);
+        activity.setContentView(mGrid);
+
+        mGrid.measure(
+                View.MeasureSpec.makeMeasureSpec(COLUMNS * CELL_SIZE, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(ITEMS / COLUMNS * CELL_SIZE, View.MeasureSpec.EXACTLY));
+        mGrid.layout(0, 0, COLUMNS * CELL_SIZE, ITEMS / COLUMNS * CELL_SIZE);
+        ShadowLooper.runUiThreadTasks();
+    }
+
+    @Test
+    public void replayIsDeterministic() throws IOException {
+        final NavigationTrace corpus = NavigationTrace.readFrom(corpus(KEYS));
+
+        // The first replay fills the selector cache
+        final NavigationTrace warm = replay(corpus);
+        assertEquals(FOCUS_PATH, focusPositions(warm));
+
+        final NavigationTrace first = replay(corpus);
+        final long firstBytes = mAllocatedBytes;
+        final NavigationTrace second = replay(corpus);
+        report(first, firstBytes);
+
+        assertEquals(0, first.getDroppedCount());
+        assertEquals(KEYS.length * 2, countKeys(first));
+        assertEquals(FOCUS_PATH, focusPositions(first));
+        assertEquals(focusPositions(first), focusPositions(second));
+        assertTrue(first.getSelectorUpdateCount() > 0);
+        assertEquals(first.getSelectorUpdateCount(), second.getSelectorUpdateCount());
+        assertEquals(first.getInvalidationCount(), second.getInvalidationCount());
+        assertEquals(first.getCacheMissCount(), second.getCacheMissCount());
+    }
+
+    /**
+     * Focuses the first cell, replays the trace with its key timing and returns what the grid recorded
+     */
+    private NavigationTrace replay(NavigationTrace corpus) {
+        mGrid.getChildAt(0).requestFocus();
+        ShadowLooper.runUiThreadTasks();
+
+        final boolean[] finished = new boolean[1];
+        final Scheduler scheduler = Robolectric.getForegroundThreadScheduler();
+        final long bytes = allocatedBytes();
+        mGrid.startNavigationTrace(CAPACITY);
+        corpus.replay(mGrid, new Runnable() {
+            @Override
+            public void run() {
+                finished[0] = true;
+            }
+        });
+        while (!finished[0]) {
+            assertTrue("Replay stalled", scheduler.advanceToNextPostedRunnable());
+        }
+        ShadowLooper.runUiThreadTasks();
+        final NavigationTrace trace = mGrid.stopNavigationTrace();
+        mAllocatedBytes = allocatedBytes() - bytes;
+        return trace;
+    }
+
+    private static void report(NavigationTrace trace, long allocatedBytes) {
+        System.out.println("Navigation replay: "
+                + trace.getSelectorUpdateCount() + " selector updates, "
+                + trace.getInvalidationCount() + " invalidations, "
+                + allocatedBytes + " bytes allocated, "
+                + trace.getCacheMissCount() + " cache misses");
+    }
+
+    /**
+     * @return bytes allocated by the test thread so far, which also runs the main looper
+     */
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @return a trace in the binary format holding a down and an up event for every key
+     */
+    private static ByteArrayInputStream corpus(int[] keys) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeInt(0x54564754);
+        data.writeInt(2);
+        data.writeInt(keys.length * 2);
+        for (int i = 0; i < 5; i++) {
+            data.writeInt(0); // dropped events and counters
+        }
+
+        for (int i = 0; i < keys.length; i++) {
+            writeKey(data, (i + 1) * KEY_INTERVAL, keys[i], KeyEvent.ACTION_DOWN);
+            writeKey(data, (i + 1) * KEY_INTERVAL + KEY_HOLD, keys[i], KeyEvent.ACTION_UP);
+        }
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+
+    private static void writeKey(DataOutputStream data, long time, int keyCode, int action) throws IOException {
+        data.writeInt((int) time);
+        data.writeByte(NavigationTrace.EVENT_KEY);
+        data.writeInt(keyCode);
+        data.writeInt(action);
+        data.writeInt(0);
+        data.writeInt(0);
+    }
+
+    private static int countKeys(NavigationTrace trace) {
+        int keys = 0;
+        for (int i = 0; i < trace.getEventCount(); i++) {
+            if (trace.getEventType(i) == NavigationTrace.EVENT_KEY) keys++;
+        }
+        return keys;
+    }
+
+    private static List<Integer> focusPositions(NavigationTrace trace) {
+        ArrayList<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < trace.getEventCount(); i++) {
+            if (trace.getEventType(i) == NavigationTrace.EVENT_FOCUS) positions.add(trace.getEventArg(i, 0));
+        }
+        return positions;
+    }
+
+    private static final class Adapter extends TVGridAdapter<TVGridViewHolder> {
+
+        @Override
+        public TVGridViewHolder onCreateGridViewHolder(ViewGroup parent, int viewType) {
+            TextView view = new TextView(parent.getContext());
+            view.setLayoutParams(new ViewGroup.LayoutParams(CELL_SIZE, CELL_SIZE));
+            return new TVGridViewHolder(view);
+        }
+
+        @Override
+        public void onBindViewHolder(TVGridViewHolder holder, int position) {
+            ((TextView) holder.itemView).setText(String.valueOf(position));
+        }
+
+        @Override
+        public int getItemCount() {
+            return ITEMS;
+        }
+    }
+}
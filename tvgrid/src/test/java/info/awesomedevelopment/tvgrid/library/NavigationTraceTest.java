@@ -0,0 +1,66 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+public class NavigationTraceTest {
+
+    @Test
+    public void emptyTraceRoundTrips() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new NavigationTrace(16).writeTo(out);
+
+        NavigationTrace trace = NavigationTrace.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(0, trace.getEventCount());
+        assertEquals(0, trace.getSelectorUpdateCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void negativeEventCountIsRejected() throws IOException {
+        NavigationTrace.readFrom(header(-1));
+    }
+
+    @Test(expected = IOException.class)
+    public void hugeEventCountIsRejected() throws IOException {
+        NavigationTrace.readFrom(header(Integer.MAX_VALUE));
+    }
+
+    @Test(expected = IOException.class)
+    public void otherStreamsAreRejected() throws IOException {
+        NavigationTrace.readFrom(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}));
+    }
+
+    /**
+     * @return stream holding a valid magic and version followed by the given event count
+     */
+    private static ByteArrayInputStream header(int count) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeInt(0x54564754);
+        data.writeInt(2);
+        data.writeInt(count);
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+}
@@ -0,0 +1,112 @@
+package info.awesomedevelopment.tvgrid.library;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/*
+    Copyright 2015 Sam Mathias Weggersen
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+ */
+
+public class SelectorGeometryTest {
+
+    private static final int NO = SelectorGeometry.NO_OFFSET;
+
+    private final int[] mOut = new int[4];
+
+    @Test
+    public void strokeInsideMatchesTheCell() {
+        SelectorGeometry.computeBounds(100, 50, 200, 100, SelectorGeometry.STROKE_INSIDE, 4f, 0, 0, 0, 0, NO, NO, mOut);
+        assertArrayEquals(new int[] {100, 50, 300, 150}, mOut);
+    }
+
+    @Test
+    public void strokeCenterGrowsByHalfTheStrokeOnEachEdge() {
+        SelectorGeometry.computeBounds(100, 50, 200, 100, SelectorGeometry.STROKE_CENTER, 4f, 0, 0, 0, 0, NO, NO, mOut);
+        assertArrayEquals(new int[] {98, 48, 302, 152}, mOut);
+    }
+
+    @Test
+    public void strokeOutsideGrowsByTheStrokeOnEachEdge() {
+        SelectorGeometry.computeBounds(100, 50, 200, 100, SelectorGeometry.STROKE_OUTSIDE, 4f, 0, 0, 0, 0, NO, NO, mOut);
+        assertArrayEquals(new int[] {96, 46, 304, 154}, mOut);
+    }
+
+    @Test
+    public void spacingPushesEachEdgeOutwards() {
+        SelectorGeometry.computeBounds(100, 50, 200, 100, SelectorGeometry.STROKE_INSIDE, 4f, 1, 2, 3, 4, NO, NO, mOut);
+        assertArrayEquals(new int[] {99, 48, 303, 154}, mOut);
+    }
+
+    @Test
+    public void offsetsMoveTheBounds() {
+        SelectorGeometry.computeBounds(100, 50, 200, 100, SelectorGeometry.STROKE_OUTSIDE, 4f, 0, 0, 0, 0, 10, 5, mOut);
+        assertArrayEquals(new int[] {106, 51, 314, 159}, mOut);
+
+        SelectorGeometry.computeBounds(100, 50, 200, 100, SelectorGeometry.STROKE_INSIDE, 4f, 0, 0, 0, 0, 10, NO, mOut);
+        assertArrayEquals(new int[] {110, 50, 310, 150}, mOut);
+    }
+
+    @Test
+    public void strokeSpacingCoversBothEdges() {
+        assertEquals(0, SelectorGeometry.strokeSpacing(SelectorGeometry.STROKE_INSIDE, 3f));
+        assertEquals(3, SelectorGeometry.strokeSpacing(SelectorGeometry.STROKE_CENTER, 3f));
+        assertEquals(6, SelectorGeometry.strokeSpacing(SelectorGeometry.STROKE_OUTSIDE, 3f));
+    }
+
+    @Test
+    public void interpolateHitsBothEndsAndTheMiddle() {
+        final int[] from = {0, 0, 100, 100};
+        final int[] to = {100, 50, 300, 250};
+
+        SelectorGeometry.interpolate(from, to, 0f, mOut);
+        assertArrayEquals(from, mOut);
+
+        SelectorGeometry.interpolate(from, to, 0.5f, mOut);
+        assertArrayEquals(new int[] {50, 25, 200, 175}, mOut);
+
+        SelectorGeometry.interpolate(from, to, 1f, mOut);
+        assertArrayEquals(to, mOut);
+    }
+
+    @Test
+    public void interpolateMayWriteIntoItsInput() {
+        final int[] from = {0, 0, 100, 100};
+        SelectorGeometry.interpolate(from, new int[] {100, 50, 300, 250}, 0.5f, from);
+        assertArrayEquals(new int[] {50, 25, 200, 175}, from);
+    }
+
+    @Test
+    public void scaleAroundTheCenter() {
+        final int[] bounds = {100, 100, 200, 200};
+        SelectorGeometry.scale(bounds, 1.5f, 150f, 150f);
+        assertArrayEquals(new int[] {75, 75, 225, 225}, bounds);
+    }
+
+    @Test
+    public void scaleAroundACorner() {
+        final int[] bounds = {100, 100, 200, 200};
+        SelectorGeometry.scale(bounds, 2f, 100f, 100f);
+        assertArrayEquals(new int[] {100, 100, 300, 300}, bounds);
+    }
+
+    @Test
+    public void scaleByOneKeepsTheBounds() {
+        final int[] bounds = {10, 20, 30, 40};
+        SelectorGeometry.scale(bounds, 1f, 0f, 0f);
+        assertArrayEquals(new int[] {10, 20, 30, 40}, bounds);
+    }
+}